@@ -0,0 +1,115 @@
+package com.benchmark;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.common.DateTimeWriter;
+
+/**
+ * DateTimeWriter against Instant.toString() and a localized DateTimeFormatter,
+ * formatting a run of log timestamps a few milliseconds apart (so mostly of the
+ * same day) into one reused StringBuilder or ByteBuffer. Times are per value.
+ *	java -jar target/benchmarks.jar DateTimeWriterBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DateTimeWriterBenchmark {
+
+	static final int COUNT = 1024;
+
+	final DateTimeFormatter medium = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM).withLocale(Locale.US);
+	final DateTimeWriter mediumWriter = DateTimeWriter.ofLocalizedDateTime(FormatStyle.MEDIUM, Locale.US);
+	final StringBuilder line = new StringBuilder(64);
+	final ByteBuffer bytes = ByteBuffer.allocate(64);
+
+	long[] millis;
+
+	@Setup
+	public void setUp() {
+		millis = new long[COUNT];
+		long now = 1_587_664_730_200L;
+		for(int i=0; i<COUNT; i++) {
+			now += 1 + i % 7;
+			millis[i] = now;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public int jdkIsoInstant() {
+		int length = 0;
+		for(long value : millis) {
+			line.setLength(0);
+			length += line.append(Instant.ofEpochMilli(value).toString()).length();
+		}
+		return length;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public int isoInstant() {
+		int length = 0;
+		for(long value : millis) {
+			line.setLength(0);
+			length += DateTimeWriter.isoInstant().format(value, line).length();
+		}
+		return length;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public int isoInstantBytes() {
+		int length = 0;
+		for(long value : millis) {
+			bytes.clear();
+			length += DateTimeWriter.isoInstant().format(value, bytes).position();
+		}
+		return length;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public int jdkLocalizedMedium() {
+		int length = 0;
+		for(long value : millis) {
+			line.setLength(0);
+			LocalDateTime dateTime = LocalDateTime.ofEpochSecond(value / 1000, 0, ZoneOffset.UTC);
+			medium.formatTo(dateTime, line);
+			length += line.length();
+		}
+		return length;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public int localizedMedium() {
+		int length = 0;
+		for(long value : millis) {
+			line.setLength(0);
+			length += mediumWriter.format(value, line).length();
+		}
+		return length;
+	}
+}
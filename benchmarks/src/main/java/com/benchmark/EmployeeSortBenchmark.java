@@ -0,0 +1,108 @@
+package com.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.common.Employee;
+import com.common.RadixSorts;
+
+/**
+ * MethodReferenceDemo's comparator sorts of arrayOfEmps against RadixSorts,
+ * by salary and by empId. Every invocation sorts a fresh copy of the shuffled roster.
+ *	java -jar target/benchmarks.jar EmployeeSortBenchmark -prof gc
+ * The 10000000 rows need a few GB of heap; add e.g. -jvmArgs "-Xms4g -Xmx4g".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeeSortBenchmark {
+
+	@Param({"10000", "1000000", "10000000"})
+	int size;
+
+	Employee[] roster;
+	Employee[] work;
+
+	@Setup
+	public void setUp() {
+		roster = Rosters.employees(size).toArray(new Employee[0]);
+		// Rosters hands out ids in order; shuffle so sorting by id is real work
+		SplittableRandom random = new SplittableRandom(7);
+		for(int i=roster.length - 1; i>0; i--) {
+			int j = random.nextInt(i + 1);
+			Employee tmp = roster[i];
+			roster[i] = roster[j];
+			roster[j] = tmp;
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void copy() {
+		work = roster.clone();
+	}
+
+	@Benchmark
+	public Employee[] salaryArraysSort() {
+		Arrays.sort(work, (a, b) -> Double.compare(a.getSalary(), b.getSalary()));
+		return work;
+	}
+
+	@Benchmark
+	public Employee[] salaryArraysParallelSort() {
+		Arrays.parallelSort(work, (a, b) -> Double.compare(a.getSalary(), b.getSalary()));
+		return work;
+	}
+
+	@Benchmark
+	public Employee[] salaryRadixSort() {
+		RadixSorts.sortBySalary(work);
+		return work;
+	}
+
+	@Benchmark
+	public Employee[] salaryParallelRadixSort() {
+		RadixSorts.parallelSortBySalary(work);
+		return work;
+	}
+
+	@Benchmark
+	public Employee[] empIdArraysSort() {
+		Arrays.sort(work, (a, b) -> a.getEmpId().compareTo(b.getEmpId()));
+		return work;
+	}
+
+	@Benchmark
+	public Employee[] empIdArraysParallelSort() {
+		Arrays.parallelSort(work, (a, b) -> a.getEmpId().compareTo(b.getEmpId()));
+		return work;
+	}
+
+	@Benchmark
+	public Employee[] empIdRadixSort() {
+		RadixSorts.sortByEmpId(work);
+		return work;
+	}
+
+	@Benchmark
+	public Employee[] empIdParallelRadixSort() {
+		RadixSorts.parallelSortByEmpId(work);
+		return work;
+	}
+}
@@ -0,0 +1,149 @@
+package com.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.common.IsoDateParser;
+
+/**
+ * IsoDateParser against LocalDate.parse, LocalTime.parse and OffsetDateTime.parse
+ * on the same random ISO strings; the *Bytes variants read the same records from
+ * one ASCII byte[] feed of fixed-width lines. Times are per parsed value.
+ *	java -jar target/benchmarks.jar IsoDateParserBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IsoDateParserBenchmark {
+
+	static final int COUNT = 1024;
+
+	// "2020-04-23T19:58:50.200+02:00\n"
+	static final int TIMESTAMP_LENGTH = 29;
+	static final int LINE = TIMESTAMP_LENGTH + 1;
+
+	String[] dates;
+	String[] times;
+	String[] timestamps;
+	byte[] feed;
+
+	@Setup
+	public void setUp() {
+		SplittableRandom random = new SplittableRandom(7);
+		dates = new String[COUNT];
+		times = new String[COUNT];
+		timestamps = new String[COUNT];
+		StringBuilder lines = new StringBuilder();
+		for(int i=0; i<COUNT; i++) {
+			LocalDate date = LocalDate.ofEpochDay(random.nextInt(-20_000, 30_000));
+			LocalTime time = LocalTime.ofNanoOfDay(random.nextLong(86_400_000L) * 1_000_000L);
+			int offsetMinutes = random.nextInt(-12 * 4, 14 * 4) * 15;
+			dates[i] = date.toString();
+			times[i] = String.format("%02d:%02d:%02d.%03d", time.getHour(), time.getMinute(), time.getSecond(),
+					time.getNano() / 1_000_000);
+			timestamps[i] = String.format("%sT%s%s%02d:%02d", dates[i], times[i], offsetMinutes < 0 ? "-" : "+",
+					Math.abs(offsetMinutes) / 60, Math.abs(offsetMinutes) % 60);
+			lines.append(timestamps[i]).append('\n');
+		}
+		feed = lines.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public long jdkLocalDate() {
+		long sum = 0;
+		for(String date : dates) {
+			sum += LocalDate.parse(date).toEpochDay();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public long fastEpochDay() {
+		long sum = 0;
+		for(String date : dates) {
+			sum += IsoDateParser.parseEpochDay(date);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public long fastEpochDayBytes() {
+		long sum = 0;
+		for(int at=0; at<feed.length; at+=LINE) {
+			sum += IsoDateParser.parseEpochDay(feed, at, at + 10);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public long jdkLocalTime() {
+		long sum = 0;
+		for(String time : times) {
+			sum += LocalTime.parse(time).toNanoOfDay();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public long fastNanoOfDay() {
+		long sum = 0;
+		for(String time : times) {
+			sum += IsoDateParser.parseNanoOfDay(time);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public long jdkOffsetDateTime() {
+		long sum = 0;
+		for(String timestamp : timestamps) {
+			sum += OffsetDateTime.parse(timestamp).toInstant().toEpochMilli();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public long fastEpochMillis() {
+		long sum = 0;
+		for(String timestamp : timestamps) {
+			sum += IsoDateParser.parseEpochMillis(timestamp);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public long fastEpochMillisBytes() {
+		long sum = 0;
+		for(int at=0; at<feed.length; at+=LINE) {
+			sum += IsoDateParser.parseEpochMillis(feed, at, at + TIMESTAMP_LENGTH);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,248 @@
+package com.benchmark;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.common.Employee;
+
+/**
+ * Steady-state cost of the LambdaExpDemo / MethodReferenceDemo forms once they are
+ * linked and compiled:
+ *  - calling a Runnable / Comparator written as an anonymous class, a lambda
+ *    (the c1/c2/c3 spellings) or a method reference,
+ *  - evaluating the expression itself, capturing vs non-capturing (run with
+ *    -prof gc: gc.alloc.rate.norm shows the bytes one evaluation allocates),
+ *  - one call site fed 1, 2 or 8 different comparator classes: monomorphic and
+ *    bimorphic sites are inlined, a megamorphic one is a virtual call.
+ *	java -jar target/benchmarks.jar LambdaBenchmark -prof gc
+ * First-call (bootstrap) cost is measured separately by LambdaLinkageBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LambdaBenchmark {
+
+	private static final int CALLS = 1024;
+
+	Employee e1;
+	Employee e2;
+	double limit;
+	int counter;
+
+	Runnable anonymousRunnable;
+	Runnable lambdaRunnable;
+	Comparator<Employee> anonymousComparator;
+	Comparator<Employee> typedBlockLambda;
+	Comparator<Employee> blockLambda;
+	Comparator<Employee> expressionLambda;
+	Comparator<Employee> staticMethodRef;
+	Comparator<Employee> comparing;
+
+	@Setup
+	public void setUp() {
+		e1 = new Employee(1, "ABC EFG", 100000.0);
+		e2 = new Employee(2, "HIJ KLM", 200000.0);
+		limit = 150000.0;
+
+		// r1 / r2 of LambdaExpDemo
+		anonymousRunnable = new Runnable() {
+			@Override
+			public void run() {
+				counter++;
+			}
+		};
+		lambdaRunnable = () -> counter++;
+
+		// c1 / c2 / c3 of LambdaExpDemo, plus the anonymous class and method reference forms
+		anonymousComparator = new Comparator<Employee>() {
+			@Override
+			public int compare(Employee a, Employee b) {
+				return a.getEmpId().compareTo(b.getEmpId());
+			}
+		};
+		typedBlockLambda = (Employee a, Employee b) -> {
+			return a.getEmpId().compareTo(b.getEmpId());
+		};
+		blockLambda = (a, b) -> {
+			return a.getEmpId().compareTo(b.getEmpId());
+		};
+		expressionLambda = (a, b) -> a.getEmpId().compareTo(b.getEmpId());
+		staticMethodRef = LambdaBenchmark::compareByEmpId;
+		comparing = Comparator.comparing(Employee::getEmpId);
+	}
+
+	/**
+	 * Inputs of callSite(); a separate state so that only that benchmark is run once
+	 * per morphism.
+	 */
+	@State(Scope.Thread)
+	public static class CallSite {
+		/**
+		 * Number of distinct comparator classes seen by the call site.
+		 */
+		@Param({"1", "2", "8"})
+		int morphism;
+
+		List<Comparator<Employee>> comparators;
+		Employee[] lefts;
+		Employee[] rights;
+
+		@Setup
+		public void setUp() {
+			comparators = polymorphicComparators(morphism);
+			lefts = new Employee[CALLS];
+			rights = new Employee[CALLS];
+			for(int i=0; i<CALLS; i++) {
+				lefts[i] = new Employee(i, "L" + i, i * 10.0);
+				rights[i] = new Employee(CALLS - i, "R" + i, (CALLS - i) * 10.0);
+			}
+		}
+	}
+
+	/*********************** invocation ***********************/
+
+	@Benchmark
+	public int runAnonymousClass() {
+		anonymousRunnable.run();
+		return counter;
+	}
+
+	@Benchmark
+	public int runLambda() {
+		lambdaRunnable.run();
+		return counter;
+	}
+
+	@Benchmark
+	public int compareAnonymousClass() {
+		return anonymousComparator.compare(e1, e2);
+	}
+
+	@Benchmark
+	public int compareTypedBlockLambda() {
+		return typedBlockLambda.compare(e1, e2);
+	}
+
+	@Benchmark
+	public int compareBlockLambda() {
+		return blockLambda.compare(e1, e2);
+	}
+
+	@Benchmark
+	public int compareExpressionLambda() {
+		return expressionLambda.compare(e1, e2);
+	}
+
+	@Benchmark
+	public int compareStaticMethodRef() {
+		return staticMethodRef.compare(e1, e2);
+	}
+
+	@Benchmark
+	public int compareComparing() {
+		return comparing.compare(e1, e2);
+	}
+
+	/*********************** evaluation / capture ***********************/
+
+	@Benchmark
+	public void createNonCapturingLambda(Blackhole bh) {
+		bh.consume((Runnable)() -> System.nanoTime());
+	}
+
+	@Benchmark
+	public void createCapturingLambda(Blackhole bh) {
+		double l = limit;
+		bh.consume((Predicate<Employee>)emp -> emp.getSalary() > l);
+	}
+
+	@Benchmark
+	public void createThisCapturingLambda(Blackhole bh) {
+		bh.consume((Runnable)() -> counter++);
+	}
+
+	@Benchmark
+	public void createAnonymousClass(Blackhole bh) {
+		bh.consume(new Runnable() {
+			@Override
+			public void run() {
+				System.nanoTime();
+			}
+		});
+	}
+
+	@Benchmark
+	public void createBoundMethodRef(Blackhole bh) {
+		bh.consume((Supplier<String>)e1::getName);
+	}
+
+	@Benchmark
+	public void createUnboundMethodRef(Blackhole bh) {
+		bh.consume((Function<Employee, String>)Employee::getName);
+	}
+
+	/*********************** call-site morphism ***********************/
+
+	@Benchmark
+	@OperationsPerInvocation(CALLS)
+	public int callSite(CallSite site) {
+		return compareAll(site.comparators, site.lefts, site.rights);
+	}
+
+	/**
+	 * Kept out of line so its compare() call site has one type profile of its own,
+	 * filled only by the comparators of the current morphism.
+	 */
+	@CompilerControl(CompilerControl.Mode.DONT_INLINE)
+	private static int compareAll(List<Comparator<Employee>> comparators, Employee[] lefts, Employee[] rights) {
+		int sum = 0;
+		int k = comparators.size();
+		for(int i=0; i<lefts.length; i++) {
+			sum += comparators.get(i % k).compare(lefts[i], rights[i]);
+		}
+		return sum;
+	}
+
+	private static int compareByEmpId(Employee a, Employee b) {
+		return a.getEmpId().compareTo(b.getEmpId());
+	}
+
+	/**
+	 * n comparators, each a lambda of its own class.
+	 */
+	private static List<Comparator<Employee>> polymorphicComparators(int n) {
+		List<Comparator<Employee>> all = List.of(
+				(a, b) -> a.getEmpId().compareTo(b.getEmpId()),
+				(a, b) -> Double.compare(a.getSalary(), b.getSalary()),
+				(a, b) -> a.getName().compareTo(b.getName()),
+				(a, b) -> b.getEmpId().compareTo(a.getEmpId()),
+				(a, b) -> Double.compare(b.getSalary(), a.getSalary()),
+				(a, b) -> b.getName().compareTo(a.getName()),
+				(a, b) -> a.getName().compareToIgnoreCase(b.getName()),
+				(a, b) -> Integer.compare(a.getName().length(), b.getName().length()));
+		// a copy, not a subList view, so get() in the measured loop is a plain array read
+		return List.copyOf(all.subList(0, n));
+	}
+}
@@ -0,0 +1,102 @@
+package com.benchmark;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.common.Employee;
+
+/**
+ * First-call cost of each form: every fork is a fresh JVM that runs the benchmark
+ * method exactly once, so the time includes loading the anonymous class, or for a
+ * lambda / method reference the invokedynamic bootstrap (LambdaMetafactory spinning
+ * and defining the implementation class) plus the interpreted first call.
+ * JMH itself has already used lambdas by then, so this is the cost of one more
+ * call site in a warm runtime, not of the first lambda in the JVM.
+ *	java -jar target/benchmarks.jar LambdaLinkageBenchmark
+ * Steady-state costs are in LambdaBenchmark.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(30)
+@State(Scope.Thread)
+public class LambdaLinkageBenchmark {
+
+	Employee e1;
+	Employee e2;
+	double limit;
+
+	@Setup
+	public void setUp() {
+		e1 = new Employee(1, "ABC EFG", 100000.0);
+		e2 = new Employee(2, "HIJ KLM", 200000.0);
+		limit = 150000.0;
+	}
+
+	@Benchmark
+	public int anonymousClass() {
+		Comparator<Employee> c = new Comparator<Employee>() {
+			@Override
+			public int compare(Employee a, Employee b) {
+				return a.getEmpId().compareTo(b.getEmpId());
+			}
+		};
+		return c.compare(e1, e2);
+	}
+
+	@Benchmark
+	public int nonCapturingLambda() {
+		Comparator<Employee> c = (a, b) -> a.getEmpId().compareTo(b.getEmpId());
+		return c.compare(e1, e2);
+	}
+
+	@Benchmark
+	public boolean capturingLambda() {
+		double l = limit;
+		Predicate<Employee> p = emp -> emp.getSalary() > l;
+		return p.test(e1);
+	}
+
+	@Benchmark
+	public int staticMethodRef() {
+		Comparator<Employee> c = LambdaLinkageBenchmark::compareByEmpId;
+		return c.compare(e1, e2);
+	}
+
+	@Benchmark
+	public String boundMethodRef() {
+		Supplier<String> s = e1::getName;
+		return s.get();
+	}
+
+	@Benchmark
+	public String unboundMethodRef() {
+		Function<Employee, String> f = Employee::getName;
+		return f.apply(e1);
+	}
+
+	@Benchmark
+	public StringBuilder constructorRef() {
+		Function<String, StringBuilder> f = StringBuilder::new;
+		return f.apply("Giant");
+	}
+
+	private static int compareByEmpId(Employee a, Employee b) {
+		return a.getEmpId().compareTo(b.getEmpId());
+	}
+}
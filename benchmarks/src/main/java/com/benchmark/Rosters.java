@@ -0,0 +1,54 @@
+package com.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.common.Employee;
+
+/**
+ * Deterministic synthetic data shared by the benchmarks, so runs are comparable.
+ */
+final class Rosters {
+
+	static final double MAX_SALARY = 500000.0;
+
+	private static final long SEED = 42L;
+
+	private Rosters() {
+	}
+
+	/**
+	 * size employees with ids 1..size, "FIRST LAST" upper-case names and uniform salaries.
+	 */
+	static List<Employee> employees(int size) {
+		SplittableRandom random = new SplittableRandom(SEED);
+		List<Employee> employees = new ArrayList<>(size);
+		for(int i=1; i<=size; i++) {
+			employees.add(new Employee(i, name(random), Math.floor(random.nextDouble(MAX_SALARY))));
+		}
+		return employees;
+	}
+
+	/**
+	 * size ints drawn from [0, size/4), so distinct() keeps roughly a quarter of them.
+	 */
+	static int[] ints(int size) {
+		SplittableRandom random = new SplittableRandom(SEED);
+		int bound = Math.max(size / 4, 1);
+		int[] ints = new int[size];
+		for(int i=0; i<size; i++) {
+			ints[i] = random.nextInt(bound);
+		}
+		return ints;
+	}
+
+	private static String name(SplittableRandom random) {
+		char[] chars = new char[7];
+		for(int i=0; i<chars.length; i++) {
+			chars[i] = (char)('A' + random.nextInt(26));
+		}
+		chars[3] = ' ';
+		return new String(chars);
+	}
+}
@@ -0,0 +1,189 @@
+package com.benchmark;
+
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.common.Employee;
+import com.common.EmployeeColumns;
+import com.common.GroupingCollectors;
+import com.common.IntCollectors;
+import com.common.IntList;
+
+/**
+ * The StreamDemo pipelines at realistic roster sizes, sequential vs parallel and
+ * boxed vs primitive-specialized.
+ *
+ * Run all of them with throughput, average time and the GC profiler's
+ * allocation rate per operation:
+ *	java -jar target/benchmarks.jar StreamDemoBenchmark -prof gc
+ * or through main() below, which adds the GC profiler itself. The 10000000 rows
+ * need a few GB of heap; give it with -jvmArgs, e.g. -jvmArgs "-Xms6g -Xmx6g", or
+ * leave that size out with -p size=1000,100000,1000000.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamDemoBenchmark {
+
+	@Param({"1000", "100000", "1000000", "10000000"})
+	int size;
+
+	@Param({"false", "true"})
+	boolean parallel;
+
+	List<Employee> empList;
+	EmployeeColumns empColumns;
+	List<Integer> boxedInts;
+	int[] ints;
+	double salaryThreshold;
+
+	@Setup
+	public void setUp() {
+		empList = Rosters.employees(size);
+		empColumns = EmployeeColumns.of(empList);
+		ints = Rosters.ints(size);
+		boxedInts = IntStream.of(ints).boxed().collect(Collectors.toList());
+		// roughly the top 10% of a uniform salary distribution, hit early but not first
+		salaryThreshold = Rosters.MAX_SALARY * 0.9;
+	}
+
+	private Stream<Employee> employees() {
+		return parallel ? empList.parallelStream() : empList.stream();
+	}
+
+	private Stream<Integer> boxed() {
+		return parallel ? boxedInts.parallelStream() : boxedInts.stream();
+	}
+
+	private IntStream primitive() {
+		IntStream stream = IntStream.of(ints);
+		return parallel ? stream.parallel() : stream;
+	}
+
+	/*********************** filter / findFirst ***********************/
+
+	@Benchmark
+	public Employee filterFindFirst() {
+		return employees()
+				.filter(emp -> emp != null)
+				.filter(emp -> emp.getSalary() > salaryThreshold)
+				.findFirst()
+				.orElse(null);
+	}
+
+	/*********************** sorted ***********************/
+
+	@Benchmark
+	public List<Employee> sortedByName() {
+		return employees()
+				.sorted((e1, e2) -> e2.getName().compareTo(e1.getName()))
+				.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<Integer> sortedBoxed() {
+		return boxed().sorted().collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public int[] sortedPrimitive() {
+		return primitive().sorted().toArray();
+	}
+
+	/*********************** distinct ***********************/
+
+	@Benchmark
+	public List<Integer> distinctBoxed() {
+		return boxed().distinct().collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public int[] distinctPrimitive() {
+		return primitive().distinct().toArray();
+	}
+
+	/*********************** partitioningBy ***********************/
+
+	@Benchmark
+	public Map<Boolean, List<Integer>> partitioningByBoxed() {
+		return boxed().collect(Collectors.partitioningBy(i -> i%2 == 0));
+	}
+
+	@Benchmark
+	public Map<Boolean, IntList> partitioningByPrimitive() {
+		return IntCollectors.collect(primitive(), IntCollectors.partitioningBy(i -> i%2 == 0));
+	}
+
+	/*********************** groupingBy ***********************/
+
+	@Benchmark
+	public Map<Character, List<Employee>> groupingByBoxed() {
+		return employees().collect(Collectors.groupingBy(emp -> emp.getName().charAt(0)));
+	}
+
+	@Benchmark
+	public Map<Character, List<Employee>> groupingByPrimitiveKey() {
+		return employees().collect(GroupingCollectors.groupingByChar(emp -> emp.getName().charAt(0)));
+	}
+
+	/*********************** summarizingDouble ***********************/
+
+	@Benchmark
+	public DoubleSummaryStatistics summarizingDoubleBoxed() {
+		return employees().collect(Collectors.summarizingDouble(Employee::getSalary));
+	}
+
+	@Benchmark
+	public DoubleSummaryStatistics summarizingDoublePrimitive() {
+		return employees().mapToDouble(Employee::getSalary).summaryStatistics();
+	}
+
+	@Benchmark
+	public DoubleSummaryStatistics summarizingDoubleColumnar() {
+		if(parallel) {
+			return IntStream.range(0, empColumns.size()).parallel()
+					.mapToDouble(empColumns::salary)
+					.summaryStatistics();
+		}
+		return empColumns.salaryStatistics();
+	}
+
+	@Benchmark
+	public Employee minBySalary() {
+		return employees().min(Comparator.comparingDouble(Employee::getSalary)).orElse(null);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(StreamDemoBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,401 @@
+package com.common;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous replacement for System.out.println in hot paths.
+ *
+ * println() only puts the message into a bounded lock-free ring (many producers,
+ * one consumer) and returns; it never takes the lock System.out takes for every
+ * call. A single daemon thread drains the ring, encodes the messages into one
+ * direct ByteBuffer and writes each full buffer (or whatever is there when the
+ * ring runs empty) with a single channel write.
+ *
+ * What a producer does when the ring is full is set by the OverflowPolicy:
+ * BLOCK waits for room, DROP discards the message (and counts it), SPILL moves it
+ * to an unbounded overflow queue that is drained after the ring. Messages of one
+ * thread are written in the order they were printed under every policy; messages
+ * of different threads interleave line by line. The order relative to anything
+ * printed directly with System.out is not defined, so a class should print
+ * through one or the other.
+ *
+ * out() is the shared sink for standard output; it is flushed at JVM shutdown.
+ * Other sinks must be closed. Once close() has started, prints return false and
+ * flushes return at once; everything accepted before is written before close()
+ * returns.
+ */
+public final class AsyncConsoleSink implements AutoCloseable {
+
+	public enum OverflowPolicy {
+		BLOCK, DROP, SPILL
+	}
+
+	private static final int DEFAULT_CAPACITY = 1 << 14;
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static volatile AsyncConsoleSink out;
+
+	/*
+	 * The ring: slot i holds a message once sequences[i] == position + 1, and is free
+	 * for position p once sequences[i] == p (the bounded queue of D. Vyukov).
+	 */
+	private final Object[] slots;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private long head;	// drain thread only
+
+	private final Queue<Object> spill = new ConcurrentLinkedQueue<>();
+	private final OverflowPolicy policy;
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final CharsetEncoder encoder;
+	private final CharBuffer lineSeparator = CharBuffer.wrap(System.lineSeparator());
+	private final Thread drainer;
+	private volatile boolean idle;
+	private volatile boolean closing;	// no new messages
+	private volatile boolean closed;	// and none in flight: the drainer finishes
+	private final AtomicInteger producers = new AtomicInteger();
+
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder spilled = new LongAdder();
+	private volatile long written;
+	private volatile long batches;
+	private volatile IOException lastError;
+
+	public AsyncConsoleSink(WritableByteChannel channel, int capacity, OverflowPolicy policy) {
+		if(capacity < 2 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+		}
+		this.channel = channel;
+		this.policy = policy;
+		this.slots = new Object[capacity];
+		this.sequences = new AtomicLongArray(capacity);
+		this.mask = capacity - 1;
+		for(int i=0; i<capacity; i++) {
+			sequences.set(i, i);
+		}
+		this.encoder = Charset.defaultCharset().newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.drainer = new Thread(this::drain, "async-console-sink");
+		drainer.setDaemon(true);
+		drainer.start();
+	}
+
+	/**
+	 * The shared sink writing to standard output. Its policy is read once from the
+	 * system property console.sink.policy (BLOCK when unset).
+	 */
+	public static AsyncConsoleSink out() {
+		AsyncConsoleSink sink = out;
+		if(sink == null) {
+			synchronized(AsyncConsoleSink.class) {
+				sink = out;
+				if(sink == null) {
+					OverflowPolicy policy = OverflowPolicy.valueOf(System.getProperty("console.sink.policy", "BLOCK"));
+					sink = new AsyncConsoleSink(new FileOutputStream(FileDescriptor.out).getChannel(),
+							DEFAULT_CAPACITY, policy);
+					AsyncConsoleSink shared = sink;
+					Runtime.getRuntime().addShutdownHook(new Thread(() -> shared.flush(1, TimeUnit.SECONDS)));
+					out = sink;
+				}
+			}
+		}
+		return sink;
+	}
+
+	/**
+	 * Queues String.valueOf(x) followed by a line separator. Returns false if the
+	 * message was dropped (DROP policy, full ring) or the sink is closed.
+	 */
+	public boolean println(Object x) {
+		return submit(String.valueOf(x), policy == OverflowPolicy.BLOCK);
+	}
+
+	public boolean println() {
+		return submit("", policy == OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * Queues s without a line separator.
+	 */
+	public boolean print(String s) {
+		return submit(new Text(String.valueOf(s)), policy == OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * Waits until everything this thread printed before the call is written.
+	 */
+	public void flush() {
+		flush(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * As flush(), giving up after the timeout. Returns whether everything was
+	 * written; false at once if the sink is closing.
+	 */
+	public boolean flush(long timeout, TimeUnit unit) {
+		Flush marker = new Flush();
+		// a flush marker is never dropped
+		if(!submit(marker, true)) {
+			return false;
+		}
+		try {
+			return marker.done.await(timeout, unit);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Refuses new messages, writes everything accepted before and stops the drain
+	 * thread.
+	 */
+	@Override
+	public void close() {
+		closing = true;
+		// wait for the producers that got past the closing check to finish enqueueing
+		int spins = 0;
+		while(producers.get() != 0) {
+			if(++spins < 100) {
+				Thread.onSpinWait();
+			} else {
+				LockSupport.parkNanos(this, 50_000);
+			}
+		}
+		closed = true;
+		LockSupport.unpark(drainer);
+		try {
+			drainer.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public OverflowPolicy getPolicy() {
+		return policy;
+	}
+
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	public long getSpilled() {
+		return spilled.sum();
+	}
+
+	/**
+	 * Messages written so far.
+	 */
+	public long getWritten() {
+		return written;
+	}
+
+	/**
+	 * Channel writes so far; written / batches is the average batch size.
+	 */
+	public long getBatches() {
+		return batches;
+	}
+
+	/**
+	 * The last write failure, or null. Output that failed to write is lost.
+	 */
+	public IOException getLastError() {
+		return lastError;
+	}
+
+	/*********************** producers ***********************/
+
+	/**
+	 * Enqueues message unless the sink is closing. close() waits until every
+	 * producer counted in producers is done, so nothing is enqueued after the
+	 * drainer was told to finish.
+	 */
+	private boolean submit(Object message, boolean block) {
+		if(closing) {
+			return false;
+		}
+		producers.incrementAndGet();
+		try {
+			// re-check after registering: close() sets closing before it counts producers
+			return !closing && enqueue(message, block);
+		} finally {
+			producers.decrementAndGet();
+		}
+	}
+
+	private boolean enqueue(Object message, boolean block) {
+		// while anything is spilled, new messages queue behind it to keep their order
+		if(!(spill.isEmpty() && offer(message))) {
+			if(policy == OverflowPolicy.SPILL) {
+				spill.add(message);
+				spilled.increment();
+			} else if(block) {
+				int spins = 0;
+				while(!offer(message)) {
+					wakeDrainer();
+					if(++spins < 100) {
+						Thread.onSpinWait();
+					} else {
+						LockSupport.parkNanos(this, 50_000);
+					}
+				}
+			} else {
+				dropped.increment();
+				return false;
+			}
+		}
+		wakeDrainer();
+		return true;
+	}
+
+	private boolean offer(Object message) {
+		long position = tail.get();
+		while(true) {
+			int index = (int)position & mask;
+			long sequence = sequences.get(index);
+			if(sequence == position) {
+				if(tail.compareAndSet(position, position + 1)) {
+					slots[index] = message;
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if(sequence < position) {
+				// the slot still holds the message from one lap ago: full
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	private void wakeDrainer() {
+		if(idle) {
+			LockSupport.unpark(drainer);
+		}
+	}
+
+	/*********************** drain thread ***********************/
+
+	private Object poll() {
+		int index = (int)head & mask;
+		if(sequences.get(index) != head + 1) {
+			return null;
+		}
+		Object message = slots[index];
+		slots[index] = null;
+		sequences.lazySet(index, head + slots.length);
+		head++;
+		return message;
+	}
+
+	private void drain() {
+		long count = 0;
+		while(true) {
+			Object message = poll();
+			if(message == null) {
+				message = spill.poll();
+			}
+			if(message == null) {
+				// read before looking again: once closed is seen, nothing more arrives
+				boolean last = closed;
+				writeBuffer();
+				written = count;
+				if(last && isEmpty()) {
+					return;
+				}
+				idle = true;
+				// re-check after announcing idleness, so a producer cannot slip by unseen
+				if(isEmpty()) {
+					LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				}
+				idle = false;
+			} else if(message instanceof Flush) {
+				writeBuffer();
+				written = count;
+				((Flush)message).done.countDown();
+			} else {
+				if(message instanceof Text) {
+					encode(CharBuffer.wrap(((Text)message).text));
+				} else {
+					encode(CharBuffer.wrap((String)message));
+					encode(lineSeparator.duplicate());
+				}
+				count++;
+			}
+		}
+	}
+
+	private boolean isEmpty() {
+		return sequences.get((int)head & mask) != head + 1 && spill.isEmpty();
+	}
+
+	private void encode(CharBuffer chars) {
+		while(true) {
+			CoderResult result = encoder.encode(chars, buffer, true);
+			if(result.isOverflow()) {
+				writeBuffer();
+			} else {
+				break;
+			}
+		}
+		while(encoder.flush(buffer).isOverflow()) {
+			writeBuffer();
+		}
+		encoder.reset();
+	}
+
+	private void writeBuffer() {
+		if(buffer.position() == 0) {
+			return;
+		}
+		buffer.flip();
+		try {
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch(IOException e) {
+			lastError = e;
+		}
+		buffer.clear();
+		batches++;
+	}
+
+	/**
+	 * print() text, written without a line separator.
+	 */
+	private static final class Text {
+		final String text;
+
+		Text(String text) {
+			this.text = text;
+		}
+	}
+
+	private static final class Flush {
+		final CountDownLatch done = new CountDownLatch(1);
+	}
+}
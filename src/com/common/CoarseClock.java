@@ -0,0 +1,268 @@
+package com.common;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A Clock that reads the system clock once per tick instead of once per call:
+ *	CoarseClock clock = CoarseClock.systemDefaultZone();	// shared, 1 ms ticks
+ *	long millis = clock.millis();
+ *	LocalDateTime now = clock.localDateTime();
+ *	LocalDate today = LocalDate.now(clock);
+ *
+ * LocalDate.now() and friends read the system clock, resolve
+ * ZoneId.systemDefault(), look up the offset in the zone rules and create the
+ * result on every call. Here a daemon thread does that once per tick (1 ms, 10 ms
+ * or whatever granularity the clock was made with) and publishes the epoch
+ * millis, Instant, offset, LocalDate and LocalDateTime together; millis(),
+ * instant(), localDate(), localDateTime() and friends only read that, with no
+ * system call and no allocation. The LocalDate is only replaced when the local
+ * day changes. The offset is looked up in a ZoneOffsetTables table on every tick,
+ * so daylight saving changes and the day rollover they may cause show up within
+ * one tick.
+ *
+ * Values lag the system clock by up to one tick, more if the ticker thread is not
+ * scheduled in time, and follow it when it is set back. Use it where that is
+ * acceptable (log and event timestamps, expiry checks), not for measuring short
+ * intervals; System.nanoTime() is for that.
+ *
+ * withZone() returns a plain Clock for another zone on the same ticks; only the
+ * clock's own zone has cached local values. After close() the clock stops ticking
+ * and computes every value on the call, like Clock.system().
+ */
+public final class CoarseClock extends Clock implements AutoCloseable {
+
+	private static final long MILLIS_PER_DAY = 86_400_000L;
+
+	private static volatile CoarseClock systemDefault;
+
+	private final ZoneId zone;
+	private final ZoneOffsetTables.Table offsets;
+	private final long tickNanos;
+	private final Thread ticker;
+	private volatile boolean closed;
+	private volatile Tick tick;
+
+	/**
+	 * A clock for zone, ticking every granularity (at least a millisecond).
+	 */
+	public CoarseClock(ZoneId zone, Duration granularity) {
+		if(granularity.compareTo(Duration.ofMillis(1)) < 0) {
+			throw new IllegalArgumentException("granularity below 1 ms: " + granularity);
+		}
+		this.zone = zone;
+		this.offsets = ZoneOffsetTables.shared().get(zone);
+		this.tickNanos = granularity.toNanos();
+		this.tick = next(null);
+		this.ticker = new Thread(this::run, "coarse-clock-" + zone.getId());
+		ticker.setDaemon(true);
+		ticker.start();
+	}
+
+	/**
+	 * The shared clock for ZoneId.systemDefault() as of the first call, with 1 ms
+	 * ticks. Later changes of the default zone are not followed.
+	 */
+	public static CoarseClock systemDefaultZone() {
+		CoarseClock clock = systemDefault;
+		if(clock == null) {
+			synchronized(CoarseClock.class) {
+				clock = systemDefault;
+				if(clock == null) {
+					clock = new CoarseClock(ZoneId.systemDefault(), Duration.ofMillis(1));
+					systemDefault = clock;
+				}
+			}
+		}
+		return clock;
+	}
+
+	/*********************** Clock ***********************/
+
+	@Override
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	@Override
+	public Clock withZone(ZoneId zone) {
+		return zone.equals(this.zone) ? this : new ZoneView(this, zone);
+	}
+
+	@Override
+	public long millis() {
+		return current().millis;
+	}
+
+	@Override
+	public Instant instant() {
+		return current().instant;
+	}
+
+	/*********************** cached local values ***********************/
+
+	public ZoneOffset offset() {
+		return current().offset;
+	}
+
+	public LocalDate localDate() {
+		return current().dateTime.toLocalDate();
+	}
+
+	public LocalTime localTime() {
+		return current().dateTime.toLocalTime();
+	}
+
+	public LocalDateTime localDateTime() {
+		return current().dateTime;
+	}
+
+	/**
+	 * The wall clock time in millis counted as if it were UTC, as the values of
+	 * ZoneOffsetTables.Table.toLocalMillis() and DateTimeWriter.
+	 */
+	public long localMillis() {
+		return current().localMillis;
+	}
+
+	public long epochDay() {
+		return current().epochDay;
+	}
+
+	public Duration getGranularity() {
+		return Duration.ofNanos(tickNanos);
+	}
+
+	/**
+	 * Stops the ticker. The clock keeps working, reading the system clock per call.
+	 */
+	@Override
+	public void close() {
+		if(closed) {
+			return;
+		}
+		closed = true;
+		LockSupport.unpark(ticker);
+		try {
+			ticker.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CoarseClock[" + zone + ", " + getGranularity() + (closed ? ", closed]" : "]");
+	}
+
+	/*********************** ticker ***********************/
+
+	private Tick current() {
+		Tick current = tick;
+		if(closed) {
+			current = next(current);
+			tick = current;
+		}
+		return current;
+	}
+
+	private void run() {
+		while(!closed) {
+			LockSupport.parkNanos(this, tickNanos);
+			tick = next(tick);
+		}
+	}
+
+	/**
+	 * The values for the current time, reusing what did not change since previous.
+	 */
+	private Tick next(Tick previous) {
+		long millis = System.currentTimeMillis();
+		if(previous != null && previous.millis == millis) {
+			return previous;
+		}
+		int offsetSeconds = offsets.offsetAtMillis(millis);
+		long localMillis = millis + offsetSeconds * 1000L;
+		long epochDay = Math.floorDiv(localMillis, MILLIS_PER_DAY);
+		LocalDate date;
+		ZoneOffset offset;
+		if(previous != null && previous.epochDay == epochDay) {
+			date = previous.dateTime.toLocalDate();
+		} else {
+			date = LocalDate.ofEpochDay(epochDay);
+		}
+		if(previous != null && previous.offset.getTotalSeconds() == offsetSeconds) {
+			offset = previous.offset;
+		} else {
+			offset = ZoneOffset.ofTotalSeconds(offsetSeconds);
+		}
+		LocalTime time = LocalTime.ofNanoOfDay((localMillis - epochDay * MILLIS_PER_DAY) * 1_000_000L);
+		return new Tick(millis, Instant.ofEpochMilli(millis), offset, localMillis, epochDay, LocalDateTime.of(date, time));
+	}
+
+	/**
+	 * Everything published for one tick.
+	 */
+	private static final class Tick {
+		final long millis;
+		final Instant instant;
+		final ZoneOffset offset;
+		final long localMillis;
+		final long epochDay;
+		final LocalDateTime dateTime;
+
+		Tick(long millis, Instant instant, ZoneOffset offset, long localMillis, long epochDay, LocalDateTime dateTime) {
+			this.millis = millis;
+			this.instant = instant;
+			this.offset = offset;
+			this.localMillis = localMillis;
+			this.epochDay = epochDay;
+			this.dateTime = dateTime;
+		}
+	}
+
+	/**
+	 * The clock's ticks seen from another zone.
+	 */
+	private static final class ZoneView extends Clock {
+		private final CoarseClock clock;
+		private final ZoneId zone;
+
+		ZoneView(CoarseClock clock, ZoneId zone) {
+			this.clock = clock;
+			this.zone = zone;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return zone;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return clock.withZone(zone);
+		}
+
+		@Override
+		public long millis() {
+			return clock.millis();
+		}
+
+		@Override
+		public Instant instant() {
+			return clock.instant();
+		}
+
+		@Override
+		public String toString() {
+			return clock + ".withZone(" + zone + ")";
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package com.common;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Case-insensitive sorting with the case folding done once per element instead
+ * of once per comparison, as Arrays.sort(a, String::compareToIgnoreCase) does.
+ *
+ * Every string is folded to a char[] key (each char through toUpperCase and then
+ * toLowerCase, the same per-char rule compareToIgnoreCase applies), and the first
+ * four key chars are packed into a long. The packed prefixes are radix-sorted
+ * with RadixSorts; only elements whose prefixes tie are compared on their full
+ * keys. The resulting order is the compareToIgnoreCase order, and the sort is stable.
+ *
+ * For a roster that is sorted again and again, Column keeps the keys (and the
+ * computed order) so later sorts skip key extraction entirely.
+ */
+public final class CollationKeys {
+
+	private static final int PREFIX_CHARS = 4;
+
+	private CollationKeys() {
+	}
+
+	/**
+	 * Sorts like Arrays.sort(a, String::compareToIgnoreCase), stably.
+	 */
+	public static void sortIgnoreCase(String[] a) {
+		sortIgnoreCase(a, Function.identity());
+	}
+
+	/**
+	 * Sorts a by the case-insensitive order of the string key, e.g.
+	 * sortIgnoreCase(arrayOfEmps, Employee::getName). null keys sort first.
+	 */
+	public static <T> void sortIgnoreCase(T[] a, Function<? super T, String> key) {
+		Column<T> column = new Column<>(a, key);
+		System.arraycopy(column.sorted(), 0, a, 0, a.length);
+	}
+
+	/**
+	 * Case-folded key of s: compare two keys char by char (shorter first on a tie)
+	 * for the compareToIgnoreCase order.
+	 */
+	public static char[] fold(String s) {
+		char[] key = s.toCharArray();
+		for(int i=0; i<key.length; i++) {
+			key[i] = Character.toLowerCase(Character.toUpperCase(key[i]));
+		}
+		return key;
+	}
+
+	/**
+	 * First four chars of a folded key packed big-endian into a long, so that the
+	 * unsigned order of prefixes agrees with the order of the keys.
+	 */
+	public static long prefix(char[] key) {
+		long prefix = 0;
+		for(int i=0; i<PREFIX_CHARS; i++) {
+			prefix = (prefix << Character.SIZE) | (i < key.length ? key[i] : 0);
+		}
+		return prefix;
+	}
+
+	static int compareKeys(char[] a, char[] b) {
+		int n = Math.min(a.length, b.length);
+		for(int i=0; i<n; i++) {
+			if(a[i] != b[i]) {
+				return a[i] - b[i];
+			}
+		}
+		return a.length - b.length;
+	}
+
+	/**
+	 * Precomputed collation keys for a fixed set of elements.
+	 * The elements are captured when the column is built; if the name of element i
+	 * changes afterwards, call update(i). Not thread-safe.
+	 */
+	public static final class Column<T> {
+		private final T[] elements;
+		private final Function<? super T, String> key;
+		private final boolean ignoreCase;
+		private final char[][] keys;
+		private final long[] prefixes;
+		private int[] order;
+
+		public Column(T[] elements, Function<? super T, String> key) {
+			this(elements, key, true);
+		}
+
+		/**
+		 * With ignoreCase false the keys are the plain chars, giving the String.compareTo order.
+		 */
+		Column(T[] elements, Function<? super T, String> key, boolean ignoreCase) {
+			this.elements = elements.clone();
+			this.key = key;
+			this.ignoreCase = ignoreCase;
+			this.keys = new char[elements.length][];
+			this.prefixes = new long[elements.length];
+			for(int i=0; i<elements.length; i++) {
+				computeKey(i);
+			}
+		}
+
+		/**
+		 * Recomputes the key of element i after its string key changed.
+		 */
+		public void update(int i) {
+			computeKey(i);
+			order = null;
+		}
+
+		public int size() {
+			return elements.length;
+		}
+
+		/**
+		 * Indexes of the elements in case-insensitive order. Computed on the first
+		 * call and reused until update() is called.
+		 */
+		public int[] sortedOrder() {
+			if(order == null) {
+				order = computeOrder();
+			}
+			return order.clone();
+		}
+
+		/**
+		 * A new array with the elements in case-insensitive order.
+		 */
+		public T[] sorted() {
+			if(order == null) {
+				order = computeOrder();
+			}
+			T[] result = elements.clone();
+			for(int i=0; i<order.length; i++) {
+				result[i] = elements[order[i]];
+			}
+			return result;
+		}
+
+		private void computeKey(int i) {
+			String s = key.apply(elements[i]);
+			// null sorts before every string, including the empty one
+			keys[i] = s == null ? null : (ignoreCase ? fold(s) : s.toCharArray());
+			prefixes[i] = s == null ? 0 : prefix(keys[i]);
+		}
+
+		private int[] computeOrder() {
+			int n = elements.length;
+			int[] sorted = RadixSorts.sortedOrder(prefixes.clone(), n >= (1 << 16));
+			// resolve runs of equal prefixes on the full keys; the prefix covers whole
+			// keys of up to four chars, so such runs are usually short or absent
+			int start = 0;
+			while(start < n) {
+				int end = start + 1;
+				long p = prefixes[sorted[start]];
+				while(end < n && prefixes[sorted[end]] == p) {
+					end++;
+				}
+				if(end - start > 1) {
+					sortRun(sorted, start, end);
+				}
+				start = end;
+			}
+			return sorted;
+		}
+
+		private void sortRun(int[] sorted, int from, int to) {
+			Integer[] run = new Integer[to - from];
+			for(int i=from; i<to; i++) {
+				run[i - from] = sorted[i];
+			}
+			// stable, and the run is already in original index order
+			Arrays.sort(run, (a, b) -> compareNullFirst(keys[a], keys[b]));
+			for(int i=from; i<to; i++) {
+				sorted[i] = run[i - from];
+			}
+		}
+
+		private static int compareNullFirst(char[] a, char[] b) {
+			if(a == null || b == null) {
+				return a == b ? 0 : (a == null ? -1 : 1);
+			}
+			return compareKeys(a, b);
+		}
+	}
+}
@@ -0,0 +1,656 @@
+package com.common;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.chrono.IsoChronology;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.FormatStyle;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+/**
+ * Formats dates and times into a buffer the caller owns, for writing CSV and log
+ * lines at high rates:
+ *	DateTimeWriter iso = DateTimeWriter.isoInstant();
+ *	iso.format(System.currentTimeMillis(), line);		// appends 2020-04-23T17:58:50.200Z
+ *	DateTimeWriter medium = DateTimeWriter.ofLocalizedDateTime(FormatStyle.MEDIUM, Locale.US);
+ *	medium.format(localMillis, byteBuffer);			// puts Apr 23, 2020, 7:58:50 PM
+ *
+ * LocalDate.format() and DateTimeFormatter.format() build every result in a new
+ * StringBuilder and return a new String. A DateTimeWriter compiles its pattern
+ * once into a list of fields, writes numbers with a two-digit lookup table and
+ * localized month, day and AM/PM names from tables taken from the JDK, and appends
+ * the result to a StringBuilder, a char[] or a ByteBuffer (UTF-8).
+ *
+ * The text of the date part of a pattern that starts with the date, like
+ * "2020-04-23T" or "Apr 23, 2020, ", is kept for the last day formatted, so for
+ * timestamps of the same day only the time fields are written. Only moving to
+ * another day allocates.
+ *
+ * Values are milliseconds on the UTC time line: epoch millis for isoInstant(),
+ * and for the other writers the wall clock time counted as if it were UTC, i.e.
+ * LocalDateTime.toEpochSecond(ZoneOffset.UTC) * 1000 (ZoneOffsetTables.Table
+ * converts to that). The output is exactly what the corresponding
+ * DateTimeFormatter gives for that value; patterns with letters not handled here
+ * (zones, week fields, optional sections) and years outside 1..9999 (0..9999 for
+ * the ISO writers) are formatted by that DateTimeFormatter.
+ *
+ * A DateTimeWriter is immutable apart from the cached day and can be shared by
+ * any number of threads.
+ */
+public final class DateTimeWriter {
+
+	private static final long MILLIS_PER_DAY = 86_400_000L;
+
+	/*
+	 * Operations: op code in the high bits, argument (width, digits or table) in
+	 * the low 16 bits.
+	 */
+	private static final int LITERAL = 1;		// literals[arg]
+	private static final int YEAR = 2;			// year, at least arg digits
+	private static final int YEAR2 = 3;			// year % 100, two digits
+	private static final int MONTH = 4;			// arg digits
+	private static final int MONTH_TEXT = 5;	// texts[arg][month - 1]
+	private static final int DAY = 6;
+	private static final int DAY_OF_YEAR = 7;
+	private static final int DAY_OF_WEEK_TEXT = 8;
+	private static final int ERA_TEXT = 9;
+	private static final int HOUR_OF_DAY = 10;	// H
+	private static final int CLOCK_HOUR_OF_DAY = 11;	// k
+	private static final int HOUR_OF_AMPM = 12;	// K
+	private static final int CLOCK_HOUR_OF_AMPM = 13;	// h
+	private static final int AMPM_TEXT = 14;
+	private static final int MINUTE = 15;
+	private static final int SECOND = 16;
+	private static final int FRACTION = 17;		// arg digits, truncated
+	private static final int ISO_FRACTION = 18;	// ".d" to ".ddd" without trailing zeros, nothing for 0
+	private static final int INSTANT_FRACTION = 19;	// ".ddd", nothing for 0
+
+	private static final int FIRST_TIME_OP = HOUR_OF_DAY;
+
+	private static final char[] DIGITS2 = new char[200];
+	static {
+		for(int i=0; i<100; i++) {
+			DIGITS2[2 * i] = (char)('0' + i / 10);
+			DIGITS2[2 * i + 1] = (char)('0' + i % 10);
+		}
+	}
+
+	private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[64]);
+
+	private static final DateTimeWriter ISO_DATE = new DateTimeWriter(DateTimeFormatter.ISO_LOCAL_DATE, false, 0,
+			new int[] {op(YEAR, 4), op(LITERAL, 0), op(MONTH, 2), op(LITERAL, 0), op(DAY, 2)},
+			new char[][] {{'-'}}, new char[0][][]);
+	private static final DateTimeWriter ISO_DATE_TIME = new DateTimeWriter(DateTimeFormatter.ISO_LOCAL_DATE_TIME, false, 0,
+			new int[] {op(YEAR, 4), op(LITERAL, 0), op(MONTH, 2), op(LITERAL, 0), op(DAY, 2), op(LITERAL, 1),
+					op(HOUR_OF_DAY, 2), op(LITERAL, 2), op(MINUTE, 2), op(LITERAL, 2), op(SECOND, 2), op(ISO_FRACTION, 0)},
+			new char[][] {{'-'}, {'T'}, {':'}}, new char[0][][]);
+	private static final DateTimeWriter ISO_INSTANT = new DateTimeWriter(DateTimeFormatter.ISO_INSTANT, true, 0,
+			new int[] {op(YEAR, 4), op(LITERAL, 0), op(MONTH, 2), op(LITERAL, 0), op(DAY, 2), op(LITERAL, 1),
+					op(HOUR_OF_DAY, 2), op(LITERAL, 2), op(MINUTE, 2), op(LITERAL, 2), op(SECOND, 2),
+					op(INSTANT_FRACTION, 0), op(LITERAL, 3)},
+			new char[][] {{'-'}, {'T'}, {':'}, {'Z'}}, new char[0][][]);
+
+	private final DateTimeFormatter formatter;
+	private final boolean instant;
+	private final int minYear;
+
+	/**
+	 * null if the pattern can only be formatted by the formatter.
+	 */
+	private final int[] ops;
+	private final char[][] literals;
+	private final char[][][] texts;
+
+	/**
+	 * ops[0, prefixOps) depend on the date only.
+	 */
+	private final int prefixOps;
+	private final int maxLength;
+
+	private volatile DayPrefix day = new DayPrefix(Long.MIN_VALUE, null, null);
+
+	private DateTimeWriter(DateTimeFormatter formatter, boolean instant, int minYear, int[] ops, char[][] literals,
+			char[][][] texts) {
+		this.formatter = formatter;
+		this.instant = instant;
+		this.minYear = minYear;
+		this.ops = ops;
+		this.literals = literals;
+		this.texts = texts;
+		int prefix = 0;
+		int length = 0;
+		if(ops != null) {
+			while(prefix < ops.length && code(ops[prefix]) < FIRST_TIME_OP) {
+				prefix++;
+			}
+			for(int op : ops) {
+				length += maxLength(op);
+			}
+		}
+		this.prefixOps = prefix;
+		this.maxLength = length;
+	}
+
+	/*********************** factories ***********************/
+
+	/**
+	 * As DateTimeFormatter.ISO_LOCAL_DATE: 2020-04-23.
+	 */
+	public static DateTimeWriter isoDate() {
+		return ISO_DATE;
+	}
+
+	/**
+	 * As DateTimeFormatter.ISO_LOCAL_DATE_TIME: 2020-04-23T19:58:50.2, seconds always
+	 * written, the fraction only if it is not zero, without trailing zeros.
+	 */
+	public static DateTimeWriter isoDateTime() {
+		return ISO_DATE_TIME;
+	}
+
+	/**
+	 * As DateTimeFormatter.ISO_INSTANT and Instant.toString(), for epoch millis:
+	 * 2020-04-23T17:58:50.200Z, the fraction only if it is not zero.
+	 */
+	public static DateTimeWriter isoInstant() {
+		return ISO_INSTANT;
+	}
+
+	/**
+	 * As DateTimeFormatter.ofLocalizedDate(dateStyle).withLocale(locale).
+	 */
+	public static DateTimeWriter ofLocalizedDate(FormatStyle dateStyle, Locale locale) {
+		return ofLocalized(dateStyle, null, locale);
+	}
+
+	/**
+	 * As DateTimeFormatter.ofLocalizedDateTime(style).withLocale(locale).
+	 */
+	public static DateTimeWriter ofLocalizedDateTime(FormatStyle style, Locale locale) {
+		return ofLocalized(style, style, locale);
+	}
+
+	/**
+	 * As DateTimeFormatter.ofLocalizedDateTime(dateStyle, timeStyle).withLocale(locale).
+	 * Either style may be null for a date or time only.
+	 */
+	public static DateTimeWriter ofLocalized(FormatStyle dateStyle, FormatStyle timeStyle, Locale locale) {
+		String pattern = DateTimeFormatterBuilder.getLocalizedDateTimePattern(dateStyle, timeStyle,
+				IsoChronology.INSTANCE, locale);
+		return ofPattern(pattern, locale);
+	}
+
+	/**
+	 * As DateTimeFormatter.ofPattern(pattern, locale).
+	 * @throws IllegalArgumentException if the pattern is invalid
+	 */
+	public static DateTimeWriter ofPattern(String pattern, Locale locale) {
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern, locale);
+		List<Integer> ops = new ArrayList<>();
+		List<char[]> literals = new ArrayList<>();
+		List<char[][]> texts = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int i = 0;
+		while(i < pattern.length()) {
+			char c = pattern.charAt(i);
+			if(c == '\'') {
+				// quoted text; '' is a quote
+				int end = i + 1;
+				while(end < pattern.length()) {
+					if(pattern.charAt(end) == '\'') {
+						if(end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+							end++;
+						} else {
+							break;
+						}
+					}
+					end++;
+				}
+				literal.append(end == i + 1 ? "'" : pattern.substring(i + 1, end).replace("''", "'"));
+				i = end + 1;
+				continue;
+			}
+			if(!isLetter(c)) {
+				if(c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+					return fallbackOnly(formatter);
+				}
+				literal.append(c);
+				i++;
+				continue;
+			}
+			int count = 1;
+			while(i + count < pattern.length() && pattern.charAt(i + count) == c) {
+				count++;
+			}
+			String letters = pattern.substring(i, i + count);
+			i += count;
+			if(literal.length() > 0) {
+				ops.add(op(LITERAL, literals.size()));
+				literals.add(literal.toString().toCharArray());
+				literal.setLength(0);
+			}
+			int op = fieldOp(c, count, letters, locale, texts);
+			if(op == 0) {
+				return fallbackOnly(formatter);
+			}
+			ops.add(op);
+		}
+		if(literal.length() > 0) {
+			ops.add(op(LITERAL, literals.size()));
+			literals.add(literal.toString().toCharArray());
+		}
+		int[] compiled = new int[ops.size()];
+		for(int k=0; k<compiled.length; k++) {
+			compiled[k] = ops.get(k);
+		}
+		return new DateTimeWriter(formatter, false, 1, compiled, literals.toArray(new char[0][]),
+				texts.toArray(new char[0][][]));
+	}
+
+	/**
+	 * The op for count repetitions of the pattern letter c, or 0 if it is not handled.
+	 */
+	private static int fieldOp(char c, int count, String letters, Locale locale, List<char[][]> texts) {
+		switch(c) {
+		case 'y':
+		case 'u':
+			return count == 2 ? op(YEAR2, 2) : op(YEAR, count);
+		case 'M':
+		case 'L':
+			if(count <= 2) {
+				return op(MONTH, count);
+			}
+			return op(MONTH_TEXT, addText(texts, names(letters, locale, 12, k -> LocalDate.of(2000, k + 1, 1))));
+		case 'd':
+			return count <= 2 ? op(DAY, count) : 0;
+		case 'D':
+			return count <= 3 ? op(DAY_OF_YEAR, count) : 0;
+		case 'E':
+			// 2000-01-03 is a Monday, DayOfWeek 1
+			return count <= 5 ? op(DAY_OF_WEEK_TEXT, addText(texts, names(letters, locale, 7, k -> LocalDate.of(2000, 1, 3 + k)))) : 0;
+		case 'G':
+			// only years 1..9999 are written here, all in the current era
+			return count <= 5 ? op(ERA_TEXT, addText(texts, names(letters, locale, 1, k -> LocalDate.of(2000, 1, 1)))) : 0;
+		case 'a':
+			return count == 1 ? op(AMPM_TEXT, addText(texts, names(letters, locale, 2, k -> LocalTime.of(12 * k, 0)))) : 0;
+		case 'H':
+			return count <= 2 ? op(HOUR_OF_DAY, count) : 0;
+		case 'k':
+			return count <= 2 ? op(CLOCK_HOUR_OF_DAY, count) : 0;
+		case 'K':
+			return count <= 2 ? op(HOUR_OF_AMPM, count) : 0;
+		case 'h':
+			return count <= 2 ? op(CLOCK_HOUR_OF_AMPM, count) : 0;
+		case 'm':
+			return count <= 2 ? op(MINUTE, count) : 0;
+		case 's':
+			return count <= 2 ? op(SECOND, count) : 0;
+		case 'S':
+			return count <= 9 ? op(FRACTION, count) : 0;
+		default:
+			return 0;
+		}
+	}
+
+	private static char[][] names(String letters, Locale locale, int count, IntFunction<TemporalAccessor> sample) {
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern(letters, locale);
+		char[][] names = new char[count][];
+		for(int k=0; k<count; k++) {
+			names[k] = formatter.format(sample.apply(k)).toCharArray();
+		}
+		return names;
+	}
+
+	private static int addText(List<char[][]> texts, char[][] names) {
+		texts.add(names);
+		return texts.size() - 1;
+	}
+
+	private static DateTimeWriter fallbackOnly(DateTimeFormatter formatter) {
+		return new DateTimeWriter(formatter, false, 1, null, null, null);
+	}
+
+	private static boolean isLetter(char c) {
+		return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+	}
+
+	/*********************** formatting ***********************/
+
+	/**
+	 * Appends the value to out.
+	 */
+	public StringBuilder format(long millis, StringBuilder out) {
+		char[] scratch = scratch();
+		int length = render(millis, scratch);
+		return length >= 0 ? out.append(scratch, 0, length) : out.append(fallback(millis));
+	}
+
+	/**
+	 * Writes the value to out from offset on and returns the offset after it.
+	 * @throws IndexOutOfBoundsException if it does not fit; out is not modified then
+	 */
+	public int format(long millis, char[] out, int offset) {
+		char[] scratch = scratch();
+		int length = render(millis, scratch);
+		if(length < 0) {
+			String text = fallback(millis);
+			text.getChars(0, text.length(), out, offset);
+			return offset + text.length();
+		}
+		System.arraycopy(scratch, 0, out, offset, length);
+		return offset + length;
+	}
+
+	/**
+	 * Puts the value into out as UTF-8.
+	 * @throws BufferOverflowException if it does not fit; out is not modified then
+	 */
+	public ByteBuffer format(long millis, ByteBuffer out) {
+		char[] scratch = scratch();
+		int length = render(millis, scratch);
+		if(length < 0) {
+			scratch = fallback(millis).toCharArray();
+			length = scratch.length;
+		}
+		int bytes = length;
+		for(int i=0; i<length; i++) {
+			char c = scratch[i];
+			if(c >= 0x80) {
+				if(isPair(scratch, i, length)) {
+					bytes += 2;
+					i++;
+				} else if(!Character.isSurrogate(c)) {
+					bytes += c >= 0x800 ? 2 : 1;
+				}
+			}
+		}
+		if(out.remaining() < bytes) {
+			throw new BufferOverflowException();
+		}
+		for(int i=0; i<length; i++) {
+			char c = scratch[i];
+			if(c < 0x80) {
+				out.put((byte)c);
+			} else if(c < 0x800) {
+				out.put((byte)(0xC0 | c >> 6));
+				out.put((byte)(0x80 | c & 0x3F));
+			} else if(isPair(scratch, i, length)) {
+				int cp = Character.toCodePoint(c, scratch[++i]);
+				out.put((byte)(0xF0 | cp >> 18));
+				out.put((byte)(0x80 | cp >> 12 & 0x3F));
+				out.put((byte)(0x80 | cp >> 6 & 0x3F));
+				out.put((byte)(0x80 | cp & 0x3F));
+			} else if(Character.isSurrogate(c)) {
+				// a lone surrogate has no UTF-8 form; '?' as String.getBytes() writes
+				out.put((byte)'?');
+			} else {
+				out.put((byte)(0xE0 | c >> 12));
+				out.put((byte)(0x80 | c >> 6 & 0x3F));
+				out.put((byte)(0x80 | c & 0x3F));
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Whether chars[i] and chars[i + 1] are a surrogate pair, 4 bytes in UTF-8.
+	 */
+	private static boolean isPair(char[] chars, int i, int length) {
+		return Character.isHighSurrogate(chars[i]) && i + 1 < length && Character.isLowSurrogate(chars[i + 1]);
+	}
+
+	public StringBuilder format(LocalDate date, StringBuilder out) {
+		return format(date.toEpochDay() * MILLIS_PER_DAY, out);
+	}
+
+	public StringBuilder format(LocalDateTime dateTime, StringBuilder out) {
+		return format(dateTime.toEpochSecond(ZoneOffset.UTC) * 1000 + dateTime.getNano() / 1_000_000, out);
+	}
+
+	/**
+	 * The value as a new String, for the occasional call outside a hot path.
+	 */
+	public String format(long millis) {
+		return format(millis, new StringBuilder(maxLength)).toString();
+	}
+
+	private char[] scratch() {
+		char[] scratch = SCRATCH.get();
+		if(scratch.length < maxLength) {
+			scratch = new char[maxLength];
+			SCRATCH.set(scratch);
+		}
+		return scratch;
+	}
+
+	/**
+	 * Writes the value to scratch from 0 on and returns its length, or -1 if it has
+	 * to be formatted by the formatter.
+	 */
+	private int render(long millis, char[] scratch) {
+		long epochDay = Math.floorDiv(millis, MILLIS_PER_DAY);
+		DayPrefix prefix = day;
+		if(prefix.epochDay != epochDay) {
+			prefix = dayPrefix(epochDay);
+			day = prefix;
+		}
+		if(prefix.text == null) {
+			return -1;
+		}
+		int pos = prefix.text.length;
+		System.arraycopy(prefix.text, 0, scratch, 0, pos);
+		int millisOfDay = (int)(millis - epochDay * MILLIS_PER_DAY);
+		for(int k=prefixOps; k<ops.length; k++) {
+			pos = write(ops[k], prefix.date, millisOfDay, scratch, pos);
+		}
+		return pos;
+	}
+
+	private DayPrefix dayPrefix(long epochDay) {
+		// years outside the range are formatted by the formatter, without the cache
+		if(ops == null || epochDay < -719_528L || epochDay > 2_932_896L) {
+			return new DayPrefix(epochDay, null, null);
+		}
+		LocalDate date = LocalDate.ofEpochDay(epochDay);
+		if(date.getYear() < minYear) {
+			return new DayPrefix(epochDay, null, null);
+		}
+		char[] text = new char[maxLength];
+		int length = 0;
+		for(int k=0; k<prefixOps; k++) {
+			length = write(ops[k], date, 0, text, length);
+		}
+		char[] trimmed = new char[length];
+		System.arraycopy(text, 0, trimmed, 0, length);
+		return new DayPrefix(epochDay, date, trimmed);
+	}
+
+	private String fallback(long millis) {
+		if(instant) {
+			return formatter.format(Instant.ofEpochMilli(millis));
+		}
+		return formatter.format(LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+				Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC));
+	}
+
+	private int write(int op, LocalDate date, int millisOfDay, char[] out, int pos) {
+		int arg = op & 0xFFFF;
+		int hour = millisOfDay / 3_600_000;
+		switch(code(op)) {
+		case LITERAL:
+			return copy(literals[arg], out, pos);
+		case YEAR:
+			return number(date.getYear(), arg, out, pos);
+		case YEAR2:
+			return number(date.getYear() % 100, 2, out, pos);
+		case MONTH:
+			return number(date.getMonthValue(), arg, out, pos);
+		case MONTH_TEXT:
+			return copy(texts[arg][date.getMonthValue() - 1], out, pos);
+		case DAY:
+			return number(date.getDayOfMonth(), arg, out, pos);
+		case DAY_OF_YEAR:
+			return number(date.getDayOfYear(), arg, out, pos);
+		case DAY_OF_WEEK_TEXT:
+			return copy(texts[arg][date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue()], out, pos);
+		case ERA_TEXT:
+			return copy(texts[arg][0], out, pos);
+		case HOUR_OF_DAY:
+			return number(hour, arg, out, pos);
+		case CLOCK_HOUR_OF_DAY:
+			return number(hour == 0 ? 24 : hour, arg, out, pos);
+		case HOUR_OF_AMPM:
+			return number(hour % 12, arg, out, pos);
+		case CLOCK_HOUR_OF_AMPM:
+			return number(hour % 12 == 0 ? 12 : hour % 12, arg, out, pos);
+		case AMPM_TEXT:
+			return copy(texts[arg][hour < 12 ? 0 : 1], out, pos);
+		case MINUTE:
+			return number(millisOfDay / 60_000 % 60, arg, out, pos);
+		case SECOND:
+			return number(millisOfDay / 1000 % 60, arg, out, pos);
+		case FRACTION:
+			return fraction(millisOfDay % 1000, arg, out, pos);
+		case ISO_FRACTION: {
+			int millis = millisOfDay % 1000;
+			if(millis == 0) {
+				return pos;
+			}
+			out[pos++] = '.';
+			int digits = millis % 100 == 0 ? 1 : (millis % 10 == 0 ? 2 : 3);
+			return fraction(millis, digits, out, pos);
+		}
+		default: {
+			// INSTANT_FRACTION
+			int millis = millisOfDay % 1000;
+			if(millis == 0) {
+				return pos;
+			}
+			out[pos++] = '.';
+			return fraction(millis, 3, out, pos);
+		}
+		}
+	}
+
+	/**
+	 * value >= 0 in decimal, zero padded to at least width digits.
+	 */
+	private static int number(int value, int width, char[] out, int pos) {
+		if(value < 100 && width <= 2) {
+			if(value >= 10 || width == 2) {
+				out[pos] = DIGITS2[2 * value];
+				out[pos + 1] = DIGITS2[2 * value + 1];
+				return pos + 2;
+			}
+			out[pos] = (char)('0' + value);
+			return pos + 1;
+		}
+		int digits = 1;
+		for(int v=value; v>=10; v/=10) {
+			digits++;
+		}
+		int end = pos + Math.max(digits, width);
+		int at = end;
+		while(value >= 100) {
+			int q = value % 100;
+			value /= 100;
+			out[--at] = DIGITS2[2 * q + 1];
+			out[--at] = DIGITS2[2 * q];
+		}
+		if(value >= 10) {
+			out[--at] = DIGITS2[2 * value + 1];
+			out[--at] = DIGITS2[2 * value];
+		} else {
+			out[--at] = (char)('0' + value);
+		}
+		while(at > pos) {
+			out[--at] = '0';
+		}
+		return end;
+	}
+
+	/**
+	 * The first digits digits of millis / 1000 as a decimal fraction.
+	 */
+	private static int fraction(int millis, int digits, char[] out, int pos) {
+		out[pos] = (char)('0' + millis / 100);
+		if(digits > 1) {
+			out[pos + 1] = DIGITS2[2 * (millis % 100)];
+		}
+		if(digits > 2) {
+			out[pos + 2] = DIGITS2[2 * (millis % 100) + 1];
+		}
+		for(int k=3; k<digits; k++) {
+			out[pos + k] = '0';
+		}
+		return pos + digits;
+	}
+
+	private static int copy(char[] text, char[] out, int pos) {
+		System.arraycopy(text, 0, out, pos, text.length);
+		return pos + text.length;
+	}
+
+	private int maxLength(int op) {
+		int arg = op & 0xFFFF;
+		switch(code(op)) {
+		case LITERAL:
+			return literals[arg].length;
+		case YEAR:
+			return Math.max(arg, 4);
+		case MONTH_TEXT:
+		case DAY_OF_WEEK_TEXT:
+		case ERA_TEXT:
+		case AMPM_TEXT:
+			int max = 0;
+			for(char[] text : texts[arg]) {
+				max = Math.max(max, text.length);
+			}
+			return max;
+		case DAY_OF_YEAR:
+			return 3;
+		case FRACTION:
+			return arg;
+		case ISO_FRACTION:
+		case INSTANT_FRACTION:
+			return 4;
+		default:
+			return 2;
+		}
+	}
+
+	private static int op(int code, int arg) {
+		return code << 16 | arg;
+	}
+
+	private static int code(int op) {
+		return op >>> 16;
+	}
+
+	/**
+	 * The date part of the output for one day. text is null when that day is
+	 * formatted by the formatter.
+	 */
+	private static final class DayPrefix {
+		final long epochDay;
+		final LocalDate date;
+		final char[] text;
+
+		DayPrefix(long epochDay, LocalDate date, char[] text) {
+			this.epochDay = epochDay;
+			this.date = date;
+			this.text = text;
+		}
+	}
+}
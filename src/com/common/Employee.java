@@ -1,9 +1,29 @@
 package com.common;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.DoubleUnaryOperator;
+
 public class Employee{
 	Integer empId;
 	String name;
-	double salary;
+	// volatile so readers never see a torn value; updates go through SALARY CAS loops
+	volatile double salary;
+
+	private static final SalaryListener[] NO_LISTENERS = {};
+	// copy on write, so a salary change reads one field when nobody listens
+	private volatile SalaryListener[] listeners = NO_LISTENERS;
+
+	private static final VarHandle SALARY;
+	static {
+		try {
+			SALARY = MethodHandles.lookup().findVarHandle(Employee.class, "salary", double.class);
+		} catch(ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
 	
 	public Integer getEmpId() {
 		return empId;
@@ -26,7 +46,8 @@ public class Employee{
 	}
 
 	public void setSalary(double salary) {
-		this.salary = salary;
+		double old = (double)SALARY.getAndSet(this, salary);
+		salaryChanged(old, salary);
 	}
 
 	public Employee(Integer empId, String name, double salary) {
@@ -36,8 +57,90 @@ public class Employee{
 		this.salary = salary;
 	}
 	
+	/**
+	 * Raises the salary by percent. Safe to call from several threads at once;
+	 * concurrent increments are applied one after another, none is lost.
+	 */
 	public void salaryIncrement(double percent) {
-		this.salary = this.salary * (1 + percent/100);
+		double factor = 1 + percent/100;
+		double current;
+		double next;
+		do {
+			current = salary;
+			next = current * factor;
+		} while(!SALARY.compareAndSet(this, current, next));
+		salaryChanged(current, next);
+	}
+
+	/**
+	 * Adds amount to the salary with the same guarantees as salaryIncrement.
+	 */
+	public void salaryAdd(double amount) {
+		double current;
+		double next;
+		do {
+			current = salary;
+			next = current + amount;
+		} while(!SALARY.compareAndSet(this, current, next));
+		salaryChanged(current, next);
+	}
+
+	/**
+	 * Atomically replaces the salary with adjustment applied to the current value and
+	 * returns the new salary. adjustment may be re-run under contention, so it must be
+	 * side-effect free.
+	 */
+	public double updateSalary(DoubleUnaryOperator adjustment) {
+		double current;
+		double next;
+		do {
+			current = salary;
+			next = adjustment.applyAsDouble(current);
+		} while(!SALARY.compareAndSet(this, current, next));
+		salaryChanged(current, next);
+		return next;
+	}
+
+	/*********************** salary listeners ***********************/
+
+	/**
+	 * Told about every salary change made through this class, after the change and
+	 * on the thread that made it. Changes of one employee from several threads may
+	 * be reported out of order; getSalary() has the current value.
+	 */
+	@FunctionalInterface
+	public interface SalaryListener {
+		void salaryChanged(Employee emp, double oldSalary, double newSalary);
+	}
+
+	public synchronized void addSalaryListener(SalaryListener listener) {
+		SalaryListener[] current = listeners;
+		SalaryListener[] next = Arrays.copyOf(current, current.length + 1);
+		next[current.length] = Objects.requireNonNull(listener);
+		listeners = next;
+	}
+
+	/**
+	 * Removes one registration of listener. Returns false if it was not registered.
+	 */
+	public synchronized boolean removeSalaryListener(SalaryListener listener) {
+		SalaryListener[] current = listeners;
+		for(int i=0; i<current.length; i++) {
+			if(current[i] == listener) {
+				SalaryListener[] next = new SalaryListener[current.length - 1];
+				System.arraycopy(current, 0, next, 0, i);
+				System.arraycopy(current, i + 1, next, i, next.length - i);
+				listeners = next.length == 0 ? NO_LISTENERS : next;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void salaryChanged(double oldSalary, double newSalary) {
+		for(SalaryListener listener : listeners) {
+			listener.salaryChanged(this, oldSalary, newSalary);
+		}
 	}
 
 	@Override
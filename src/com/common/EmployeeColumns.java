@@ -0,0 +1,250 @@
+package com.common;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Struct-of-arrays store for employees: one int[] of ids, one double[] of salaries
+ * and a dictionary-encoded name column (int codes into a table of distinct names).
+ * The salary kernels walk the raw double[] in plain counted loops, which the JIT
+ * can unroll and vectorize, instead of chasing one Employee reference per row.
+ * Employee objects are only created on demand through toEmployee()/toEmployees().
+ */
+public class EmployeeColumns {
+
+	private int[] ids;
+	private double[] salaries;
+	private int[] nameCodes;
+	private int size;
+
+	private String[] dictionary = new String[16];
+	private final Map<String, Integer> dictionaryIndex = new HashMap<>();
+
+	public EmployeeColumns() {
+		this(16);
+	}
+
+	public EmployeeColumns(int initialCapacity) {
+		int capacity = Math.max(initialCapacity, 1);
+		ids = new int[capacity];
+		salaries = new double[capacity];
+		nameCodes = new int[capacity];
+	}
+
+	public static EmployeeColumns of(Collection<Employee> employees) {
+		EmployeeColumns columns = new EmployeeColumns(employees.size());
+		for(Employee emp : employees) {
+			columns.add(emp);
+		}
+		return columns;
+	}
+
+	public static EmployeeColumns of(Employee... employees) {
+		return of(Arrays.asList(employees));
+	}
+
+	public int add(Employee emp) {
+		return add(emp.getEmpId(), emp.getName(), emp.getSalary());
+	}
+
+	/**
+	 * Appends a row and returns its index.
+	 */
+	public int add(int empId, String name, double salary) {
+		if(size == ids.length) {
+			int capacity = size << 1;
+			ids = Arrays.copyOf(ids, capacity);
+			salaries = Arrays.copyOf(salaries, capacity);
+			nameCodes = Arrays.copyOf(nameCodes, capacity);
+		}
+		ids[size] = empId;
+		salaries[size] = salary;
+		nameCodes[size] = encode(name);
+		return size++;
+	}
+
+	/**
+	 * Appends every row of other, re-encoding names into this store's dictionary.
+	 */
+	public void addAll(EmployeeColumns other) {
+		for(int i=0; i<other.size; i++) {
+			add(other.ids[i], other.dictionary[other.nameCodes[i]], other.salaries[i]);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int empId(int row) {
+		checkRow(row);
+		return ids[row];
+	}
+
+	public double salary(int row) {
+		checkRow(row);
+		return salaries[row];
+	}
+
+	public void setSalary(int row, double salary) {
+		checkRow(row);
+		salaries[row] = salary;
+	}
+
+	public String name(int row) {
+		checkRow(row);
+		return dictionary[nameCodes[row]];
+	}
+
+	public int nameCode(int row) {
+		checkRow(row);
+		return nameCodes[row];
+	}
+
+	/**
+	 * Returns the dictionary code for name, or -1 if no row has that name.
+	 */
+	public int codeOf(String name) {
+		Integer code = dictionaryIndex.get(name);
+		return code == null ? -1 : code;
+	}
+
+	public int distinctNames() {
+		return dictionaryIndex.size();
+	}
+
+	/*********************** Salary kernels ***********************/
+
+	public long count() {
+		return size;
+	}
+
+	public double sumSalary() {
+		double[] s = salaries;
+		int n = size;
+		// four independent accumulators break the add dependency chain
+		double a0 = 0, a1 = 0, a2 = 0, a3 = 0;
+		int i = 0;
+		for(; i + 3 < n; i += 4) {
+			a0 += s[i];
+			a1 += s[i + 1];
+			a2 += s[i + 2];
+			a3 += s[i + 3];
+		}
+		for(; i < n; i++) {
+			a0 += s[i];
+		}
+		return (a0 + a1) + (a2 + a3);
+	}
+
+	/**
+	 * Average salary, or 0.0 for an empty store (same as average().orElse(0.0)).
+	 */
+	public double avgSalary() {
+		return size == 0 ? 0.0 : sumSalary() / size;
+	}
+
+	/**
+	 * Minimum salary, or Double.POSITIVE_INFINITY for an empty store
+	 * (same as DoubleSummaryStatistics.getMin()).
+	 */
+	public double minSalary() {
+		double[] s = salaries;
+		double min = Double.POSITIVE_INFINITY;
+		for(int i=0; i<size; i++) {
+			min = Math.min(min, s[i]);
+		}
+		return min;
+	}
+
+	/**
+	 * Maximum salary, or Double.NEGATIVE_INFINITY for an empty store
+	 * (same as DoubleSummaryStatistics.getMax()).
+	 */
+	public double maxSalary() {
+		double[] s = salaries;
+		double max = Double.NEGATIVE_INFINITY;
+		for(int i=0; i<size; i++) {
+			max = Math.max(max, s[i]);
+		}
+		return max;
+	}
+
+	/**
+	 * Number of rows whose salary is strictly greater than threshold.
+	 */
+	public long countSalaryAbove(double threshold) {
+		double[] s = salaries;
+		long count = 0;
+		for(int i=0; i<size; i++) {
+			count += s[i] > threshold ? 1 : 0;
+		}
+		return count;
+	}
+
+	/**
+	 * Drop-in replacement for collect(Collectors.summarizingDouble(Employee::getSalary)).
+	 */
+	public DoubleSummaryStatistics salaryStatistics() {
+		DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+		double[] s = salaries;
+		for(int i=0; i<size; i++) {
+			stats.accept(s[i]);
+		}
+		return stats;
+	}
+
+	/**
+	 * Multiplies every salary by (1 + percent/100), the columnar form of
+	 * forEach(e -> e.salaryIncrement(percent)).
+	 */
+	public void salaryIncrement(double percent) {
+		double factor = 1 + percent/100;
+		double[] s = salaries;
+		for(int i=0; i<size; i++) {
+			s[i] = s[i] * factor;
+		}
+	}
+
+	/*********************** Employee views ***********************/
+
+	/**
+	 * Materializes one row as a new Employee. Changes to it are not written back.
+	 */
+	public Employee toEmployee(int row) {
+		checkRow(row);
+		return new Employee(ids[row], dictionary[nameCodes[row]], salaries[row]);
+	}
+
+	public List<Employee> toEmployees() {
+		Employee[] out = new Employee[size];
+		for(int i=0; i<size; i++) {
+			out[i] = new Employee(ids[i], dictionary[nameCodes[i]], salaries[i]);
+		}
+		return Arrays.asList(out);
+	}
+
+	private int encode(String name) {
+		Integer code = dictionaryIndex.get(name);
+		if(code != null) {
+			return code;
+		}
+		int next = dictionaryIndex.size();
+		if(next == dictionary.length) {
+			dictionary = Arrays.copyOf(dictionary, next << 1);
+		}
+		dictionary[next] = name;
+		dictionaryIndex.put(name, next);
+		return next;
+	}
+
+	private void checkRow(int row) {
+		if(row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("row " + row + " out of bounds for size " + size);
+		}
+	}
+}
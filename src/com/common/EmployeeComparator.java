@@ -0,0 +1,279 @@
+package com.common;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Multi-key Employee ordering, e.g. empId ascending, then salary descending, then
+ * name ignoring case:
+ *	EmployeeComparator order = EmployeeComparator.builder()
+ *			.empId().salaryDescending().nameIgnoreCase().build();
+ *
+ * As a Comparator it is one object whose compare() walks the keys itself and
+ * compares them as primitives (int, double, chars), instead of a
+ * Comparator.comparing(...).thenComparing(...) chain that makes one more
+ * comparator call and boxes or unboxes a value per key.
+ *
+ * sort()/parallelSort() do not call compare() at all. Every key is turned into a
+ * primitive sort key once per employee (salaries and ids directly; names are
+ * ranked once with CollationKeys), the keys are packed into as few longs as
+ * possible, and the array is radix-sorted on them with RadixSorts, least
+ * significant word first. The result is the same stable order compare() defines.
+ *
+ * null names sort before all other names; null empIds are not supported.
+ */
+public final class EmployeeComparator implements Comparator<Employee> {
+
+	private static final int EMP_ID = 0;
+	private static final int SALARY = 1;
+	private static final int NAME = 2;
+	private static final int NAME_IGNORE_CASE = 3;
+
+	private static final String[] FIELD_NAMES = {"empId", "salary", "name", "name ignoring case"};
+
+	/**
+	 * field of key i, and whether key i is descending.
+	 */
+	private final int[] fields;
+	private final boolean[] descending;
+
+	private EmployeeComparator(int[] fields, boolean[] descending) {
+		this.fields = fields;
+		this.descending = descending;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public int compare(Employee a, Employee b) {
+		for(int k=0; k<fields.length; k++) {
+			int c;
+			switch(fields[k]) {
+			case EMP_ID:
+				c = Integer.compare(a.getEmpId(), b.getEmpId());
+				break;
+			case SALARY:
+				c = Double.compare(a.getSalary(), b.getSalary());
+				break;
+			case NAME:
+				c = compareNames(a.getName(), b.getName(), false);
+				break;
+			default:
+				c = compareNames(a.getName(), b.getName(), true);
+				break;
+			}
+			if(c != 0) {
+				return descending[k] ? (c > 0 ? -1 : 1) : c;
+			}
+		}
+		return 0;
+	}
+
+	/*********************** packed-key sorts ***********************/
+
+	/**
+	 * Stable sort of employees in this order, without comparator calls.
+	 */
+	public void sort(Employee[] employees) {
+		sort(employees, false);
+	}
+
+	public void parallelSort(Employee[] employees) {
+		sort(employees, true);
+	}
+
+	public void sort(List<Employee> employees) {
+		Employee[] array = employees.toArray(new Employee[0]);
+		sort(array, false);
+		for(int i=0; i<array.length; i++) {
+			employees.set(i, array[i]);
+		}
+	}
+
+	/**
+	 * For every position of the sorted sequence, the index in employees of the
+	 * employee that belongs there. employees is not modified.
+	 */
+	public int[] sortedOrder(Employee[] employees, boolean parallel) {
+		long[][] words = packedKeys(employees);
+		int n = employees.length;
+		int[] order = new int[n];
+		for(int i=0; i<n; i++) {
+			order[i] = i;
+		}
+		// LSD over the key words: each pass is stable, so ties on a more significant
+		// word keep the order established by the less significant ones
+		long[] keys = new long[n];
+		int[] next = new int[n];
+		for(int w=words.length - 1; w>=0; w--) {
+			long[] word = words[w];
+			for(int i=0; i<n; i++) {
+				keys[i] = word[order[i]];
+			}
+			int[] pass = RadixSorts.sortedOrder(keys, parallel);
+			for(int i=0; i<n; i++) {
+				next[i] = order[pass[i]];
+			}
+			int[] t = order; order = next; next = t;
+		}
+		return order;
+	}
+
+	private void sort(Employee[] employees, boolean parallel) {
+		int[] order = sortedOrder(employees, parallel);
+		Employee[] copy = employees.clone();
+		for(int i=0; i<order.length; i++) {
+			employees[i] = copy[order[i]];
+		}
+	}
+
+	/**
+	 * The sort key of every employee as a sequence of unsigned longs, most
+	 * significant word first. Keys narrower than 64 bits share a word when they fit.
+	 */
+	long[][] packedKeys(Employee[] employees) {
+		int n = employees.length;
+		List<long[]> words = new ArrayList<>();
+		long[] word = null;
+		int used = Long.SIZE;
+		for(int k=0; k<fields.length; k++) {
+			int bits = fields[k] == SALARY ? Long.SIZE : Integer.SIZE;
+			long[] key = fieldKeys(employees, fields[k]);
+			if(descending[k]) {
+				long max = bits == Long.SIZE ? -1L : 0xFFFFFFFFL;
+				for(int i=0; i<n; i++) {
+					key[i] = max - key[i];
+				}
+			}
+			if(used + bits > Long.SIZE) {
+				word = new long[n];
+				words.add(word);
+				used = 0;
+			}
+			int shift = Long.SIZE - used - bits;
+			for(int i=0; i<n; i++) {
+				word[i] |= key[i] << shift;
+			}
+			used += bits;
+		}
+		// the unused low bits of a partial word are zero everywhere, and RadixSorts
+		// skips byte positions that never vary
+		return words.toArray(new long[0][]);
+	}
+
+	private static long[] fieldKeys(Employee[] employees, int field) {
+		int n = employees.length;
+		long[] keys = new long[n];
+		switch(field) {
+		case EMP_ID:
+			for(int i=0; i<n; i++) {
+				keys[i] = (employees[i].getEmpId() ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+			}
+			break;
+		case SALARY:
+			for(int i=0; i<n; i++) {
+				keys[i] = RadixSorts.sortableDouble(employees[i].getSalary());
+			}
+			break;
+		default:
+			// dense rank of every name: equal names share a rank
+			boolean ignoreCase = field == NAME_IGNORE_CASE;
+			int[] order = new CollationKeys.Column<>(employees, Employee::getName, ignoreCase).sortedOrder();
+			long rank = 0;
+			for(int i=0; i<n; i++) {
+				if(i > 0 && compareNames(employees[order[i - 1]].getName(), employees[order[i]].getName(), ignoreCase) != 0) {
+					rank++;
+				}
+				keys[order[i]] = rank;
+			}
+			break;
+		}
+		return keys;
+	}
+
+	private static int compareNames(String a, String b, boolean ignoreCase) {
+		if(a == null || b == null) {
+			return a == b ? 0 : (a == null ? -1 : 1);
+		}
+		return ignoreCase ? a.compareToIgnoreCase(b) : a.compareTo(b);
+	}
+
+	@Override
+	public String toString() {
+		StringJoiner joiner = new StringJoiner(", ", "EmployeeComparator[", "]");
+		for(int k=0; k<fields.length; k++) {
+			joiner.add(FIELD_NAMES[fields[k]] + (descending[k] ? " desc" : " asc"));
+		}
+		return joiner.toString();
+	}
+
+	/**
+	 * Keys in order of significance. A field may be used only once: later keys on
+	 * the same field could never decide anything.
+	 */
+	public static final class Builder {
+		private final List<int[]> keys = new ArrayList<>();
+
+		private Builder() {
+		}
+
+		public Builder empId() {
+			return add(EMP_ID, false);
+		}
+
+		public Builder empIdDescending() {
+			return add(EMP_ID, true);
+		}
+
+		public Builder salary() {
+			return add(SALARY, false);
+		}
+
+		public Builder salaryDescending() {
+			return add(SALARY, true);
+		}
+
+		public Builder name() {
+			return add(NAME, false);
+		}
+
+		public Builder nameDescending() {
+			return add(NAME, true);
+		}
+
+		public Builder nameIgnoreCase() {
+			return add(NAME_IGNORE_CASE, false);
+		}
+
+		public Builder nameIgnoreCaseDescending() {
+			return add(NAME_IGNORE_CASE, true);
+		}
+
+		public EmployeeComparator build() {
+			if(keys.isEmpty()) {
+				throw new IllegalStateException("no sort keys");
+			}
+			int[] fields = new int[keys.size()];
+			boolean[] descending = new boolean[keys.size()];
+			for(int k=0; k<fields.length; k++) {
+				fields[k] = keys.get(k)[0];
+				descending[k] = keys.get(k)[1] != 0;
+			}
+			return new EmployeeComparator(fields, descending);
+		}
+
+		private Builder add(int field, boolean descending) {
+			for(int[] key : keys) {
+				if(key[0] == field) {
+					throw new IllegalStateException(FIELD_NAMES[field] + " is already a sort key");
+				}
+			}
+			keys.add(new int[] {field, descending ? 1 : 0});
+			return this;
+		}
+	}
+}
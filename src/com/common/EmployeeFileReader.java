@@ -0,0 +1,368 @@
+package com.common;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads employee rosters from delimited text files (id, name, salary per line).
+ *
+ * Unlike Files.readString, the file is never held as one String: it is cut into
+ * chunks at line boundaries, each chunk is memory-mapped separately and the chunks
+ * are parsed in parallel. id and salary are parsed straight from the mapped bytes;
+ * the name String is the only object created per row. Per-chunk results are handed
+ * back in file order.
+ *
+ * Names may be wrapped in double quotes (with "" as an escaped quote) when they
+ * contain the delimiter. Empty lines are skipped and \r\n line endings are accepted.
+ */
+public class EmployeeFileReader {
+
+	/**
+	 * Receives one parsed row into a per-chunk sink.
+	 */
+	@FunctionalInterface
+	public interface RowConsumer<S> {
+		void accept(S sink, int empId, String name, double salary);
+	}
+
+	// chunks stay well inside the 2 GiB MappedByteBuffer limit
+	private static final long MAX_CHUNK_BYTES = 1L << 30;
+	private static final long MIN_CHUNK_BYTES = 1L << 20;
+
+	private final byte delimiter;
+	private final boolean hasHeader;
+
+	public EmployeeFileReader(char delimiter, boolean hasHeader) {
+		if(delimiter > 0x7F || delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+			throw new IllegalArgumentException("unsupported delimiter '" + delimiter + "'");
+		}
+		this.delimiter = (byte)delimiter;
+		this.hasHeader = hasHeader;
+	}
+
+	public static EmployeeFileReader csv() {
+		return new EmployeeFileReader(',', false);
+	}
+
+	public static EmployeeFileReader tsv() {
+		return new EmployeeFileReader('\t', false);
+	}
+
+	public EmployeeFileReader withHeader() {
+		return new EmployeeFileReader((char)delimiter, true);
+	}
+
+	public List<Employee> readEmployees(Path file) throws IOException {
+		List<List<Employee>> chunks = read(file, ArrayList::new,
+				(list, empId, name, salary) -> list.add(new Employee(empId, name, salary)));
+		List<Employee> employees = new ArrayList<>(chunks.stream().mapToInt(List::size).sum());
+		for(List<Employee> chunk : chunks) {
+			employees.addAll(chunk);
+		}
+		return employees;
+	}
+
+	public EmployeeColumns readColumns(Path file) throws IOException {
+		List<EmployeeColumns> chunks = read(file, EmployeeColumns::new, EmployeeColumns::add);
+		EmployeeColumns columns = new EmployeeColumns(chunks.stream().mapToInt(EmployeeColumns::size).sum());
+		for(EmployeeColumns chunk : chunks) {
+			columns.addAll(chunk);
+		}
+		return columns;
+	}
+
+	/**
+	 * Parses file in parallel. Every chunk gets its own sink from newSink, so the
+	 * consumer needs no synchronization; the sinks are returned in file order.
+	 */
+	public <S> List<S> read(Path file, Supplier<S> newSink, RowConsumer<? super S> consumer) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long[] bounds = chunkBounds(channel);
+			try {
+				return IntStream.range(0, bounds.length - 1)
+						.parallel()
+						.mapToObj(i -> {
+							S sink = newSink.get();
+							parseChunk(channel, bounds[i], bounds[i + 1], i == 0 && hasHeader, sink, consumer);
+							return sink;
+						})
+						.collect(Collectors.toList());
+			} catch(UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	/**
+	 * Splits the file into roughly equal ranges, moving every split point forward
+	 * to just past the next '\n'.
+	 */
+	private static long[] chunkBounds(FileChannel channel) throws IOException {
+		long size = channel.size();
+		int wanted = Runtime.getRuntime().availableProcessors() * 4;
+		long target = Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, size / wanted + 1));
+		List<Long> bounds = new ArrayList<>();
+		bounds.add(0L);
+		long start = 0;
+		ByteBuffer probe = ByteBuffer.allocate(4096);
+		while(start < size) {
+			long end = start + target;
+			if(end >= size) {
+				end = size;
+			} else {
+				end = nextLineStart(channel, end, probe);
+			}
+			bounds.add(end);
+			start = end;
+		}
+		return bounds.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	private static long nextLineStart(FileChannel channel, long from, ByteBuffer probe) throws IOException {
+		long position = from;
+		while(true) {
+			probe.clear();
+			int read = channel.read(probe, position);
+			if(read < 0) {
+				return channel.size();
+			}
+			for(int i=0; i<read; i++) {
+				if(probe.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+	}
+
+	private <S> void parseChunk(FileChannel channel, long start, long end, boolean skipFirstLine,
+			S sink, RowConsumer<? super S> consumer) {
+		MappedByteBuffer buf;
+		try {
+			buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		new ChunkParser(buf, start).parse(skipFirstLine, sink, consumer);
+	}
+
+	/**
+	 * Parses one mapped chunk. Not shared between threads.
+	 */
+	private final class ChunkParser {
+		private final ByteBuffer buf;
+		private final long fileOffset;
+		private final int limit;
+		private int pos;
+		private byte[] scratch = new byte[64];
+
+		ChunkParser(ByteBuffer buf, long fileOffset) {
+			this.buf = buf;
+			this.fileOffset = fileOffset;
+			this.limit = buf.limit();
+		}
+
+		<S> void parse(boolean skipFirstLine, S sink, RowConsumer<? super S> consumer) {
+			if(skipFirstLine) {
+				skipLine();
+			}
+			while(pos < limit) {
+				byte b = buf.get(pos);
+				if(b == '\n' || b == '\r') {
+					pos++;
+					continue;
+				}
+				int empId = parseInt();
+				expect(delimiter);
+				String name = parseName();
+				expect(delimiter);
+				double salary = parseDouble();
+				if(pos < limit && buf.get(pos) == '\r') {
+					pos++;
+				}
+				if(pos < limit) {
+					expect((byte)'\n');
+				}
+				consumer.accept(sink, empId, name, salary);
+			}
+		}
+
+		private void skipLine() {
+			while(pos < limit && buf.get(pos++) != '\n') {
+				// skip header
+			}
+		}
+
+		private int parseInt() {
+			int start = pos;
+			boolean negative = false;
+			if(pos < limit && (buf.get(pos) == '-' || buf.get(pos) == '+')) {
+				negative = buf.get(pos++) == '-';
+			}
+			long value = 0;
+			int digits = 0;
+			while(pos < limit) {
+				int d = buf.get(pos) - '0';
+				if(d < 0 || d > 9) {
+					break;
+				}
+				value = value * 10 + d;
+				if(value > (long)Integer.MAX_VALUE + 1) {
+					throw error(start, "empId out of int range");
+				}
+				pos++;
+				digits++;
+			}
+			if(digits == 0) {
+				throw error(start, "expected an integer empId");
+			}
+			value = negative ? -value : value;
+			if(value > Integer.MAX_VALUE) {
+				throw error(start, "empId out of int range");
+			}
+			return (int)value;
+		}
+
+		private String parseName() {
+			if(pos < limit && buf.get(pos) == '"') {
+				return parseQuotedName();
+			}
+			int start = pos;
+			while(pos < limit) {
+				byte b = buf.get(pos);
+				if(b == delimiter || b == '\n' || b == '\r') {
+					break;
+				}
+				pos++;
+			}
+			int length = pos - start;
+			byte[] bytes = scratch(length);
+			for(int i=0; i<length; i++) {
+				bytes[i] = buf.get(start + i);
+			}
+			return new String(bytes, 0, length, StandardCharsets.UTF_8);
+		}
+
+		private String parseQuotedName() {
+			int start = pos++;
+			int length = 0;
+			while(true) {
+				if(pos >= limit) {
+					throw error(start, "unterminated quoted name");
+				}
+				byte b = buf.get(pos++);
+				if(b == '"') {
+					if(pos < limit && buf.get(pos) == '"') {
+						pos++;
+					} else {
+						break;
+					}
+				}
+				scratch(length + 1)[length++] = b;
+			}
+			return new String(scratch, 0, length, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Decimal salary. Up to 18 significant digits with a small exponent are
+		 * converted exactly with one multiply or divide by a power of ten; anything
+		 * else falls back to Double.parseDouble.
+		 */
+		private double parseDouble() {
+			int start = pos;
+			boolean negative = false;
+			if(pos < limit && (buf.get(pos) == '-' || buf.get(pos) == '+')) {
+				negative = buf.get(pos++) == '-';
+			}
+			long mantissa = 0;
+			int significant = 0;
+			int digits = 0;
+			int scale = 0;
+			boolean fraction = false;
+			while(pos < limit) {
+				byte b = buf.get(pos);
+				if(b >= '0' && b <= '9') {
+					if(significant < 18) {
+						mantissa = mantissa * 10 + (b - '0');
+						if(mantissa != 0) {
+							significant++;
+						}
+						if(fraction) {
+							scale--;
+						}
+					} else if(!fraction) {
+						scale++;
+					}
+					digits++;
+				} else if(b == '.' && !fraction) {
+					fraction = true;
+				} else {
+					break;
+				}
+				pos++;
+			}
+			if(digits == 0) {
+				throw error(start, "expected a numeric salary");
+			}
+			if(pos < limit && (buf.get(pos) == 'e' || buf.get(pos) == 'E')) {
+				while(pos < limit && buf.get(pos) != delimiter && buf.get(pos) != '\n' && buf.get(pos) != '\r') {
+					pos++;
+				}
+				return slowParseDouble(start);
+			}
+			if(significant >= 18 || scale < -22 || scale > 22 || mantissa > (1L << 53)) {
+				return slowParseDouble(start);
+			}
+			double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+			return negative ? -value : value;
+		}
+
+		private double slowParseDouble(int start) {
+			int length = pos - start;
+			byte[] bytes = scratch(length);
+			for(int i=0; i<length; i++) {
+				bytes[i] = buf.get(start + i);
+			}
+			try {
+				return Double.parseDouble(new String(bytes, 0, length, StandardCharsets.ISO_8859_1));
+			} catch(NumberFormatException e) {
+				throw error(start, "malformed salary");
+			}
+		}
+
+		private void expect(byte expected) {
+			if(pos >= limit || buf.get(pos) != expected) {
+				throw error(pos, "expected " + (expected == '\n' ? "end of line" : "'" + (char)expected + "'"));
+			}
+			pos++;
+		}
+
+		private byte[] scratch(int length) {
+			if(scratch.length < length) {
+				scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length << 1));
+			}
+			return scratch;
+		}
+
+		private IllegalArgumentException error(int at, String message) {
+			return new IllegalArgumentException(message + " at byte offset " + (fileOffset + at));
+		}
+	}
+
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+}
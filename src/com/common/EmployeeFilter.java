@@ -0,0 +1,718 @@
+package com.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Small filter language over Employee fields that compiles to one Predicate.
+ *
+ * e.g. the LambdaExpDemo / StreamDemo filters
+ *	.filter(emp -> emp != null).filter(emp -> emp.getSalary() > 230000)
+ * become
+ *	.filter(EmployeeFilter.salaryGreaterThan(230000).compile())
+ *
+ * compile() fuses what it can: under an AND, every salary comparison collapses
+ * into one interval check and every empId comparison or in-set into one range or
+ * set check, so each field is read and tested once; under an OR, id and name
+ * in-sets are merged into one hash lookup. Whatever is left becomes an adaptive
+ * AND/OR node that samples how often each of its terms rejects (or accepts) and
+ * periodically reorders them so the cheapest, most decisive term runs first.
+ * Compiled predicates reject null employees, are safe to share between threads,
+ * and their statistics are approximate under concurrent use. The built-in terms
+ * never throw: a null empId or name simply does not match, so moving one of them
+ * ahead of a matching() null check cannot break the filter.
+ */
+public abstract class EmployeeFilter {
+
+	EmployeeFilter() {
+	}
+
+	/*********************** salary ***********************/
+
+	public static EmployeeFilter salaryGreaterThan(double value) {
+		return new SalaryRange(value, false, Double.POSITIVE_INFINITY, true);
+	}
+
+	public static EmployeeFilter salaryAtLeast(double value) {
+		return new SalaryRange(value, true, Double.POSITIVE_INFINITY, true);
+	}
+
+	public static EmployeeFilter salaryLessThan(double value) {
+		return new SalaryRange(Double.NEGATIVE_INFINITY, true, value, false);
+	}
+
+	public static EmployeeFilter salaryAtMost(double value) {
+		return new SalaryRange(Double.NEGATIVE_INFINITY, true, value, true);
+	}
+
+	/**
+	 * low <= salary <= high.
+	 */
+	public static EmployeeFilter salaryBetween(double low, double high) {
+		return new SalaryRange(low, true, high, true);
+	}
+
+	/*********************** empId ***********************/
+
+	public static EmployeeFilter empIdEquals(int empId) {
+		return new IdRange(empId, empId);
+	}
+
+	/**
+	 * low <= empId <= high.
+	 */
+	public static EmployeeFilter empIdBetween(int low, int high) {
+		return new IdRange(low, high);
+	}
+
+	public static EmployeeFilter empIdIn(int... empIds) {
+		return new IdSet(empIds);
+	}
+
+	/*********************** name ***********************/
+
+	public static EmployeeFilter nameEquals(String name) {
+		return new NameSet(Collections.singleton(name));
+	}
+
+	public static EmployeeFilter nameIn(String... names) {
+		return new NameSet(new HashSet<>(Arrays.asList(names)));
+	}
+
+	public static EmployeeFilter nameStartsWith(String prefix) {
+		return new NamePrefix(prefix);
+	}
+
+	/**
+	 * Escape hatch for conditions the language does not cover. It is treated as
+	 * the most expensive kind of term.
+	 */
+	public static EmployeeFilter matching(Predicate<? super Employee> predicate) {
+		return new Custom(predicate);
+	}
+
+	/*********************** combinators ***********************/
+
+	public static EmployeeFilter allOf(EmployeeFilter... filters) {
+		return new And(Arrays.asList(filters));
+	}
+
+	public static EmployeeFilter anyOf(EmployeeFilter... filters) {
+		return new Or(Arrays.asList(filters));
+	}
+
+	public EmployeeFilter and(EmployeeFilter other) {
+		return allOf(this, other);
+	}
+
+	public EmployeeFilter or(EmployeeFilter other) {
+		return anyOf(this, other);
+	}
+
+	public EmployeeFilter negate() {
+		return new Not(this);
+	}
+
+	/**
+	 * Builds the fused predicate. Each call returns an independent predicate with
+	 * its own selectivity statistics.
+	 */
+	public Compiled compile() {
+		return new Compiled(lower());
+	}
+
+	/**
+	 * Turns this spec node into an executable node.
+	 */
+	abstract Node lower();
+
+	/*********************** compiled form ***********************/
+
+	/**
+	 * The compiled predicate. toString() shows the current evaluation plan.
+	 */
+	public static final class Compiled implements Predicate<Employee> {
+		private final Node root;
+
+		Compiled(Node root) {
+			this.root = root;
+		}
+
+		@Override
+		public boolean test(Employee emp) {
+			return emp != null && root.test(emp);
+		}
+
+		@Override
+		public String toString() {
+			return root.toString();
+		}
+	}
+
+	/**
+	 * Executable node. cost() is a rough relative price of one test().
+	 */
+	abstract static class Node {
+		abstract boolean test(Employee emp);
+
+		abstract double cost();
+
+		/**
+		 * True if the node runs caller code. That code may rely on the terms before
+		 * it, e.g. a null check, so such nodes are never reordered among themselves.
+		 */
+		boolean custom() {
+			return false;
+		}
+	}
+
+	/*********************** leaves ***********************/
+
+	static final class SalaryRange extends EmployeeFilter {
+		final double low;
+		final boolean lowInclusive;
+		final double high;
+		final boolean highInclusive;
+
+		SalaryRange(double low, boolean lowInclusive, double high, boolean highInclusive) {
+			this.low = low;
+			this.lowInclusive = lowInclusive;
+			this.high = high;
+			this.highInclusive = highInclusive;
+		}
+
+		SalaryRange intersect(SalaryRange other) {
+			double lo = low;
+			boolean loIn = lowInclusive;
+			if(other.low > lo || (other.low == lo && !other.lowInclusive)) {
+				lo = other.low;
+				loIn = other.lowInclusive;
+			}
+			double hi = high;
+			boolean hiIn = highInclusive;
+			if(other.high < hi || (other.high == hi && !other.highInclusive)) {
+				hi = other.high;
+				hiIn = other.highInclusive;
+			}
+			return new SalaryRange(lo, loIn, hi, hiIn);
+		}
+
+		@Override
+		Node lower() {
+			if(low > high || (low == high && !(lowInclusive && highInclusive))) {
+				return Constant.FALSE;
+			}
+			return new Node() {
+				@Override
+				boolean test(Employee emp) {
+					double s = emp.getSalary();
+					return (lowInclusive ? s >= low : s > low) && (highInclusive ? s <= high : s < high);
+				}
+
+				@Override
+				double cost() {
+					return 1;
+				}
+
+				@Override
+				public String toString() {
+					return "salary in " + (lowInclusive ? "[" : "(") + low + ", " + high + (highInclusive ? "]" : ")");
+				}
+			};
+		}
+	}
+
+	static final class IdRange extends EmployeeFilter {
+		final long low;
+		final long high;
+
+		IdRange(long low, long high) {
+			this.low = low;
+			this.high = high;
+		}
+
+		@Override
+		Node lower() {
+			if(low > high) {
+				return Constant.FALSE;
+			}
+			return new Node() {
+				@Override
+				boolean test(Employee emp) {
+					Integer id = emp.getEmpId();
+					return id != null && id >= low && id <= high;
+				}
+
+				@Override
+				double cost() {
+					return 1;
+				}
+
+				@Override
+				public String toString() {
+					return low == high ? "empId == " + low : "empId in [" + low + ", " + high + "]";
+				}
+			};
+		}
+	}
+
+	static final class IdSet extends EmployeeFilter {
+		final int[] ids;
+
+		IdSet(int[] ids) {
+			this.ids = ids.clone();
+		}
+
+		@Override
+		Node lower() {
+			if(ids.length == 0) {
+				return Constant.FALSE;
+			}
+			IntCollectors.IntHashSet set = new IntCollectors.IntHashSet();
+			for(int id : ids) {
+				set.add(id);
+			}
+			int[] distinct = set.toList().toArray();
+			Arrays.sort(distinct);
+			return new Node() {
+				@Override
+				boolean test(Employee emp) {
+					Integer id = emp.getEmpId();
+					return id != null && Arrays.binarySearch(distinct, id) >= 0;
+				}
+
+				@Override
+				double cost() {
+					return 1 + Math.log(distinct.length + 1) / Math.log(2) / 4;
+				}
+
+				@Override
+				public String toString() {
+					return "empId in " + (distinct.length <= 8 ? Arrays.toString(distinct) : "{" + distinct.length + " ids}");
+				}
+			};
+		}
+	}
+
+	static final class NameSet extends EmployeeFilter {
+		final Set<String> names;
+
+		NameSet(Set<String> names) {
+			this.names = names;
+		}
+
+		@Override
+		Node lower() {
+			if(names.isEmpty()) {
+				return Constant.FALSE;
+			}
+			Set<String> set = new HashSet<>(names);
+			return new Node() {
+				@Override
+				boolean test(Employee emp) {
+					return set.contains(emp.getName());
+				}
+
+				@Override
+				double cost() {
+					return 3;
+				}
+
+				@Override
+				public String toString() {
+					return "name in " + (set.size() <= 8 ? set : "{" + set.size() + " names}");
+				}
+			};
+		}
+	}
+
+	static final class NamePrefix extends EmployeeFilter {
+		final String prefix;
+
+		NamePrefix(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		Node lower() {
+			return new Node() {
+				@Override
+				boolean test(Employee emp) {
+					String name = emp.getName();
+					return name != null && name.startsWith(prefix);
+				}
+
+				@Override
+				double cost() {
+					return 2;
+				}
+
+				@Override
+				public String toString() {
+					return "name startsWith \"" + prefix + "\"";
+				}
+			};
+		}
+	}
+
+	static final class Custom extends EmployeeFilter {
+		final Predicate<? super Employee> predicate;
+
+		Custom(Predicate<? super Employee> predicate) {
+			this.predicate = predicate;
+		}
+
+		@Override
+		Node lower() {
+			return new Node() {
+				@Override
+				boolean test(Employee emp) {
+					return predicate.test(emp);
+				}
+
+				@Override
+				double cost() {
+					return 5;
+				}
+
+				@Override
+				boolean custom() {
+					return true;
+				}
+
+				@Override
+				public String toString() {
+					return "custom";
+				}
+			};
+		}
+	}
+
+	/*********************** combinators ***********************/
+
+	static final class Not extends EmployeeFilter {
+		final EmployeeFilter filter;
+
+		Not(EmployeeFilter filter) {
+			this.filter = filter;
+		}
+
+		@Override
+		Node lower() {
+			Node inner = filter.lower();
+			if(inner instanceof Constant) {
+				return inner == Constant.TRUE ? Constant.FALSE : Constant.TRUE;
+			}
+			return new Node() {
+				@Override
+				boolean test(Employee emp) {
+					return !inner.test(emp);
+				}
+
+				@Override
+				double cost() {
+					return inner.cost();
+				}
+
+				@Override
+				boolean custom() {
+					return inner.custom();
+				}
+
+				@Override
+				public String toString() {
+					return "not(" + inner + ")";
+				}
+			};
+		}
+	}
+
+	static final class And extends EmployeeFilter {
+		final List<EmployeeFilter> filters;
+
+		And(List<EmployeeFilter> filters) {
+			this.filters = filters;
+		}
+
+		@Override
+		Node lower() {
+			SalaryRange salary = null;
+			long idLow = Long.MIN_VALUE;
+			long idHigh = Long.MAX_VALUE;
+			int[] ids = null;
+			List<Node> rest = new ArrayList<>();
+			for(EmployeeFilter f : flatten(filters, And.class)) {
+				if(f instanceof SalaryRange) {
+					salary = salary == null ? (SalaryRange)f : salary.intersect((SalaryRange)f);
+				} else if(f instanceof IdRange) {
+					idLow = Math.max(idLow, ((IdRange)f).low);
+					idHigh = Math.min(idHigh, ((IdRange)f).high);
+				} else if(f instanceof IdSet) {
+					ids = ids == null ? ((IdSet)f).ids : intersect(ids, ((IdSet)f).ids);
+				} else {
+					rest.add(f.lower());
+				}
+			}
+			if(ids != null) {
+				// fold the id range into the set, leaving one id check
+				final long lo = idLow;
+				final long hi = idHigh;
+				rest.add(new IdSet(Arrays.stream(ids).filter(id -> id >= lo && id <= hi).toArray()).lower());
+			} else if(idLow != Long.MIN_VALUE || idHigh != Long.MAX_VALUE) {
+				rest.add(new IdRange(idLow, idHigh).lower());
+			}
+			if(salary != null) {
+				rest.add(salary.lower());
+			}
+			List<Node> terms = new ArrayList<>();
+			for(Node node : rest) {
+				if(node == Constant.FALSE) {
+					return Constant.FALSE;
+				}
+				if(node != Constant.TRUE) {
+					terms.add(node);
+				}
+			}
+			if(terms.isEmpty()) {
+				return Constant.TRUE;
+			}
+			return terms.size() == 1 ? terms.get(0) : new AdaptiveNode(terms, true);
+		}
+
+		private static int[] intersect(int[] a, int[] b) {
+			IntCollectors.IntHashSet inB = new IntCollectors.IntHashSet();
+			for(int id : b) {
+				inB.add(id);
+			}
+			return Arrays.stream(a).filter(inB::contains).toArray();
+		}
+	}
+
+	static final class Or extends EmployeeFilter {
+		final List<EmployeeFilter> filters;
+
+		Or(List<EmployeeFilter> filters) {
+			this.filters = filters;
+		}
+
+		@Override
+		Node lower() {
+			IntList ids = null;
+			Set<String> names = null;
+			List<Node> rest = new ArrayList<>();
+			for(EmployeeFilter f : flatten(filters, Or.class)) {
+				if(f instanceof IdSet) {
+					ids = ids == null ? new IntList() : ids;
+					ids.addAll(((IdSet)f).ids, 0, ((IdSet)f).ids.length);
+				} else if(f instanceof IdRange && ((IdRange)f).low == ((IdRange)f).high) {
+					ids = ids == null ? new IntList() : ids;
+					ids.add((int)((IdRange)f).low);
+				} else if(f instanceof NameSet) {
+					names = names == null ? new HashSet<>() : names;
+					names.addAll(((NameSet)f).names);
+				} else {
+					rest.add(f.lower());
+				}
+			}
+			if(ids != null) {
+				rest.add(new IdSet(ids.toArray()).lower());
+			}
+			if(names != null) {
+				rest.add(new NameSet(names).lower());
+			}
+			List<Node> terms = new ArrayList<>();
+			for(Node node : rest) {
+				if(node == Constant.TRUE) {
+					return Constant.TRUE;
+				}
+				if(node != Constant.FALSE) {
+					terms.add(node);
+				}
+			}
+			if(terms.isEmpty()) {
+				return Constant.FALSE;
+			}
+			return terms.size() == 1 ? terms.get(0) : new AdaptiveNode(terms, false);
+		}
+	}
+
+	private static List<EmployeeFilter> flatten(List<EmployeeFilter> filters, Class<? extends EmployeeFilter> kind) {
+		List<EmployeeFilter> flat = new ArrayList<>();
+		for(EmployeeFilter f : filters) {
+			if(kind.isInstance(f)) {
+				flat.addAll(flatten(kind == And.class ? ((And)f).filters : ((Or)f).filters, kind));
+			} else {
+				flat.add(f);
+			}
+		}
+		return flat;
+	}
+
+	static final class Constant extends Node {
+		static final Constant TRUE = new Constant(true);
+		static final Constant FALSE = new Constant(false);
+
+		private final boolean value;
+
+		private Constant(boolean value) {
+			this.value = value;
+		}
+
+		@Override
+		boolean test(Employee emp) {
+			return value;
+		}
+
+		@Override
+		double cost() {
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(value);
+		}
+	}
+
+	/**
+	 * AND / OR over several terms with short-circuit evaluation in an order that
+	 * adapts to the data. About one test in SAMPLE_RATE, picked at random per thread
+	 * so the threads share no counter, records for each term it evaluates whether
+	 * that term decided the outcome (rejected for AND, accepted for OR); about one
+	 * sample in REORDER_INTERVAL re-sorts the terms by cost / P(decisive), the order
+	 * that minimizes expected cost for independent terms. Custom terms only move
+	 * relative to the built-in ones, which are null-safe, never past each other, so
+	 * a matching() guard still runs before the matching() terms after it.
+	 */
+	static final class AdaptiveNode extends Node {
+		private static final int SAMPLE_RATE = 64;
+		private static final int REORDER_INTERVAL = 256;
+
+		private final boolean conjunction;
+		private final Node[] terms;
+		private final long[] sampled;
+		private final long[] decisive;
+		/**
+		 * Indexes into terms, in evaluation order.
+		 */
+		private volatile int[] order;
+
+		AdaptiveNode(List<Node> terms, boolean conjunction) {
+			this.conjunction = conjunction;
+			this.terms = terms.toArray(new Node[0]);
+			this.sampled = new long[this.terms.length];
+			this.decisive = new long[this.terms.length];
+			// until there are statistics, cheapest first
+			double[] cost = new double[this.terms.length];
+			for(int i=0; i<cost.length; i++) {
+				cost[i] = this.terms[i].cost();
+			}
+			this.order = arrange(cost);
+		}
+
+		@Override
+		boolean test(Employee emp) {
+			if(ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0) {
+				return sample(emp);
+			}
+			for(int i : order) {
+				if(terms[i].test(emp) != conjunction) {
+					return !conjunction;
+				}
+			}
+			return conjunction;
+		}
+
+		/**
+		 * test() that also counts, for the terms it evaluates, how often they decide.
+		 */
+		private boolean sample(Employee emp) {
+			boolean result = conjunction;
+			for(int i : order) {
+				sampled[i]++;
+				if(terms[i].test(emp) != conjunction) {
+					decisive[i]++;
+					result = !conjunction;
+					break;
+				}
+			}
+			if(ThreadLocalRandom.current().nextInt(REORDER_INTERVAL) == 0) {
+				reorder();
+			}
+			return result;
+		}
+
+		private void reorder() {
+			double[] rank = new double[terms.length];
+			for(int i=0; i<terms.length; i++) {
+				// add-one smoothing so a term that has never decided still gets a finite rank
+				double p = (decisive[i] + 1.0) / (sampled[i] + 2.0);
+				rank[i] = terms[i].cost() / p;
+			}
+			order = arrange(rank);
+		}
+
+		/**
+		 * The term indexes sorted by rank, except that the custom terms fill the
+		 * places the sort gave them in their original order.
+		 */
+		private int[] arrange(double[] rank) {
+			Integer[] idx = new Integer[terms.length];
+			for(int i=0; i<idx.length; i++) {
+				idx[i] = i;
+			}
+			Arrays.sort(idx, (a, b) -> Double.compare(rank[a], rank[b]));
+			int[] next = new int[idx.length];
+			int custom = 0;
+			for(int i=0; i<idx.length; i++) {
+				if(terms[idx[i]].custom()) {
+					while(!terms[custom].custom()) {
+						custom++;
+					}
+					next[i] = custom++;
+				} else {
+					next[i] = idx[i];
+				}
+			}
+			return next;
+		}
+
+		@Override
+		double cost() {
+			double sum = 0;
+			for(Node term : terms) {
+				sum += term.cost();
+			}
+			return sum;
+		}
+
+		@Override
+		boolean custom() {
+			for(Node term : terms) {
+				if(term.custom()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(conjunction ? "and(" : "or(");
+			int[] current = order;
+			for(int i=0; i<current.length; i++) {
+				if(i > 0) {
+					sb.append(", ");
+				}
+				sb.append(terms[current[i]]);
+			}
+			return sb.append(')').toString();
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.common;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Employee lookup table keyed by the primitive empId.
+ * Uses open addressing with linear probing over parallel arrays, so a lookup is
+ * a hash, a few int comparisons and no Integer boxing.
+ * An employee is indexed by the id it had when it was added; call put() again
+ * after changing the id through setEmpId().
+ * Not thread-safe for writers; concurrent readers are fine once populated.
+ */
+public class EmployeeRegistry {
+
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private int[] keys;
+	private Employee[] values;
+	private int mask;
+	private int size;
+
+	public EmployeeRegistry() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public EmployeeRegistry(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	public EmployeeRegistry(Collection<Employee> employees) {
+		this(employees.size());
+		for(Employee emp : employees) {
+			put(emp);
+		}
+	}
+
+	/**
+	 * Adds or replaces the employee stored under emp.getEmpId().
+	 * Returns the previous employee for that id, or null.
+	 */
+	public Employee put(Employee emp) {
+		int key = emp.getEmpId();
+		int slot = indexOf(key);
+		if(values[slot] != null) {
+			Employee previous = values[slot];
+			values[slot] = emp;
+			return previous;
+		}
+		keys[slot] = key;
+		values[slot] = emp;
+		if(++size > keys.length * LOAD_FACTOR) {
+			rehash(keys.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the employee with the given id, or null if there is none.
+	 */
+	public Employee get(int empId) {
+		return values[indexOf(empId)];
+	}
+
+	public boolean contains(int empId) {
+		return get(empId) != null;
+	}
+
+	/**
+	 * Looks up every id in one pass. Missing ids leave a null at the same position.
+	 */
+	public Employee[] getAll(int[] empIds) {
+		return getAll(empIds, new Employee[empIds.length]);
+	}
+
+	/**
+	 * Same as getAll(int[]) but writes into the caller's array, which must be at
+	 * least as long as empIds.
+	 */
+	public Employee[] getAll(int[] empIds, Employee[] out) {
+		if(out.length < empIds.length) {
+			throw new IllegalArgumentException("out.length " + out.length + " < empIds.length " + empIds.length);
+		}
+		for(int i=0; i<empIds.length; i++) {
+			out[i] = values[indexOf(empIds[i])];
+		}
+		return out;
+	}
+
+	/**
+	 * Removes the employee with the given id and returns it, or null if absent.
+	 */
+	public Employee remove(int empId) {
+		int slot = indexOf(empId);
+		Employee removed = values[slot];
+		if(removed == null) {
+			return null;
+		}
+		values[slot] = null;
+		size--;
+		// backward-shift the rest of the probe chain so lookups never stop early
+		int hole = slot;
+		int next = (slot + 1) & mask;
+		while(values[next] != null) {
+			int home = IntHash.mix(keys[next]) & mask;
+			if(((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				values[next] = null;
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		return removed;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * Returns the slot holding empId, or the empty slot where it would be inserted.
+	 */
+	private int indexOf(int empId) {
+		int slot = IntHash.mix(empId) & mask;
+		while(values[slot] != null && keys[slot] != empId) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash(int newCapacity) {
+		int[] oldKeys = keys;
+		Employee[] oldValues = values;
+		allocate(newCapacity);
+		for(int i=0; i<oldKeys.length; i++) {
+			if(oldValues[i] != null) {
+				int slot = indexOf(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Employee[capacity];
+		mask = capacity - 1;
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		int needed = (int)Math.min(1L << 30, (long)Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR) + 1);
+		return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+	}
+}
@@ -0,0 +1,354 @@
+package com.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Read-only, memory-mapped table of Employee records.
+ *
+ * File layout (big-endian):
+ *	header : int magic, int version, long rowCount, long heapSize  (24 bytes)
+ *	rows   : rowCount x { int empId, int nameLength, long nameOffset, double salary }  (24 bytes each)
+ *	heap   : UTF-8 bytes of all names, addressed by nameOffset
+ *
+ * Opening a table only maps the file, so start-up cost does not depend on the row
+ * count and the data stays out of the Java heap. Fields are read in place through
+ * the row accessors or a Cursor; Employee objects are only created by toEmployee()
+ * and stream(). A null name is stored with nameLength -1.
+ */
+public class EmployeeTable implements Closeable {
+
+	static final int MAGIC = 0x454D5054; // "EMPT"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 24;
+	static final int ROW_BYTES = 24;
+
+	private static final int EMP_ID = 0;
+	private static final int NAME_LENGTH = 4;
+	private static final int NAME_OFFSET = 8;
+	private static final int SALARY = 16;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer rows;
+	private final MappedByteBuffer heap;
+	private final int rowCount;
+
+	private EmployeeTable(FileChannel channel, MappedByteBuffer rows, MappedByteBuffer heap, int rowCount) {
+		this.channel = channel;
+		this.rows = rows;
+		this.heap = heap;
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * Writes employees to file in table format, replacing any existing file.
+	 */
+	public static void write(Path file, Collection<Employee> employees) throws IOException {
+		long rowCount = employees.size();
+		checkRegion("rows", rowCount * ROW_BYTES);
+		long heapStart = HEADER_BYTES + rowCount * ROW_BYTES;
+		try(FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer rowBuf = ByteBuffer.allocateDirect(ROW_BYTES * 4096);
+			ByteBuffer heapBuf = ByteBuffer.allocateDirect(1 << 16);
+			long rowPos = HEADER_BYTES;
+			long heapPos = heapStart;
+			long heapSize = 0;
+			for(Employee emp : employees) {
+				byte[] name = emp.getName() == null ? null : emp.getName().getBytes(StandardCharsets.UTF_8);
+				if(rowBuf.remaining() < ROW_BYTES) {
+					rowPos += flush(out, rowBuf, rowPos);
+				}
+				rowBuf.putInt(emp.getEmpId())
+					.putInt(name == null ? -1 : name.length)
+					.putLong(heapSize)
+					.putDouble(emp.getSalary());
+				if(name != null) {
+					if(heapBuf.remaining() < name.length) {
+						heapPos += flush(out, heapBuf, heapPos);
+						if(heapBuf.capacity() < name.length) {
+							heapBuf = ByteBuffer.allocateDirect(name.length);
+						}
+					}
+					heapBuf.put(name);
+					heapSize += name.length;
+				}
+			}
+			flush(out, rowBuf, rowPos);
+			flush(out, heapBuf, heapPos);
+			checkRegion("name heap", heapSize);
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+					.putInt(MAGIC).putInt(VERSION).putLong(rowCount).putLong(heapSize);
+			flush(out, header, 0);
+		}
+	}
+
+	/**
+	 * Maps an existing table file read-only.
+	 */
+	public static EmployeeTable open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while(header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+				// keep reading until the header is complete or EOF
+			}
+			header.flip();
+			if(header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+				throw new IOException(file + " is not an employee table");
+			}
+			int version = header.getInt();
+			if(version != VERSION) {
+				throw new IOException(file + ": unsupported table version " + version);
+			}
+			long rowCount = header.getLong();
+			long heapSize = header.getLong();
+			if(rowCount < 0 || heapSize < 0) {
+				throw new IOException(file + " has a corrupt header");
+			}
+			long rowBytes = rowCount * ROW_BYTES;
+			checkRegion("rows", rowBytes);
+			checkRegion("name heap", heapSize);
+			if(channel.size() < HEADER_BYTES + rowBytes + heapSize) {
+				throw new IOException(file + " is truncated");
+			}
+			MappedByteBuffer rows = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, rowBytes);
+			MappedByteBuffer heap = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + rowBytes, heapSize);
+			return new EmployeeTable(channel, rows, heap, (int)rowCount);
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public int size() {
+		return rowCount;
+	}
+
+	/*********************** Flyweight row access ***********************/
+
+	public int empId(int row) {
+		return rows.getInt(rowBase(row) + EMP_ID);
+	}
+
+	public double salary(int row) {
+		return rows.getDouble(rowBase(row) + SALARY);
+	}
+
+	/**
+	 * Decodes the name of a row. This is the only accessor that allocates.
+	 */
+	public String name(int row) {
+		int base = rowBase(row);
+		int length = rows.getInt(base + NAME_LENGTH);
+		if(length < 0) {
+			return null;
+		}
+		int offset = (int)rows.getLong(base + NAME_OFFSET);
+		byte[] bytes = new byte[length];
+		ByteBuffer view = heap.duplicate();
+		view.position(offset);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public Employee toEmployee(int row) {
+		return new Employee(empId(row), name(row), salary(row));
+	}
+
+	/**
+	 * Returns a reusable cursor positioned before the first row.
+	 * A cursor is not thread-safe; use one per thread.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Mutable flyweight over one row at a time, so a scan reads fields in place
+	 * without creating an object per row.
+	 */
+	public class Cursor {
+		private int row = -1;
+
+		public boolean next() {
+			if(row + 1 >= rowCount) {
+				return false;
+			}
+			row++;
+			return true;
+		}
+
+		public Cursor moveTo(int row) {
+			rowBase(row);
+			this.row = row;
+			return this;
+		}
+
+		public int row() {
+			return row;
+		}
+
+		public int empId() {
+			return EmployeeTable.this.empId(row);
+		}
+
+		public double salary() {
+			return EmployeeTable.this.salary(row);
+		}
+
+		public String name() {
+			return EmployeeTable.this.name(row);
+		}
+
+		public Employee toEmployee() {
+			return EmployeeTable.this.toEmployee(row);
+		}
+	}
+
+	/*********************** Streams ***********************/
+
+	/**
+	 * Streams the table as Employee objects, materialized one row at a time.
+	 * The spliterator splits by row range, so parallel() scans disjoint parts of the mapping.
+	 */
+	public Stream<Employee> stream() {
+		return StreamSupport.stream(new RowSpliterator(0, rowCount), false);
+	}
+
+	/**
+	 * Streams the salary column straight from the mapping without materializing rows.
+	 */
+	public DoubleStream salaries() {
+		return StreamSupport.doubleStream(new SalarySpliterator(0, rowCount), false);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private int rowBase(int row) {
+		if(row < 0 || row >= rowCount) {
+			throw new IndexOutOfBoundsException("row " + row + " out of bounds for size " + rowCount);
+		}
+		return row * ROW_BYTES;
+	}
+
+	private static long flush(FileChannel out, ByteBuffer buf, long position) throws IOException {
+		buf.flip();
+		long written = 0;
+		while(buf.hasRemaining()) {
+			written += out.write(buf, position + written);
+		}
+		buf.clear();
+		return written;
+	}
+
+	private static void checkRegion(String region, long bytes) throws IOException {
+		if(bytes > Integer.MAX_VALUE) {
+			throw new IOException(region + " region of " + bytes + " bytes exceeds the 2 GiB mapping limit");
+		}
+	}
+
+	private abstract class RangeSpliterator<T extends Spliterator<?>> {
+		int index;
+		final int fence;
+
+		RangeSpliterator(int origin, int fence) {
+			this.index = origin;
+			this.fence = fence;
+		}
+
+		abstract T create(int origin, int fence);
+
+		public T trySplit() {
+			int mid = (index + fence) >>> 1;
+			if(mid <= index) {
+				return null;
+			}
+			T prefix = create(index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED
+					| Spliterator.IMMUTABLE | Spliterator.NONNULL;
+		}
+	}
+
+	private class RowSpliterator extends RangeSpliterator<RowSpliterator> implements Spliterator<Employee> {
+
+		RowSpliterator(int origin, int fence) {
+			super(origin, fence);
+		}
+
+		@Override
+		RowSpliterator create(int origin, int fence) {
+			return new RowSpliterator(origin, fence);
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Employee> action) {
+			if(index >= fence) {
+				return false;
+			}
+			action.accept(toEmployee(index++));
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super Employee> action) {
+			for(; index < fence; index++) {
+				action.accept(toEmployee(index));
+			}
+		}
+	}
+
+	private class SalarySpliterator extends RangeSpliterator<SalarySpliterator> implements Spliterator.OfDouble {
+
+		SalarySpliterator(int origin, int fence) {
+			super(origin, fence);
+		}
+
+		@Override
+		SalarySpliterator create(int origin, int fence) {
+			return new SalarySpliterator(origin, fence);
+		}
+
+		@Override
+		public boolean tryAdvance(DoubleConsumer action) {
+			if(index >= fence) {
+				return false;
+			}
+			action.accept(salary(index++));
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(DoubleConsumer action) {
+			for(; index < fence; index++) {
+				action.accept(rows.getDouble(index * ROW_BYTES + SALARY));
+			}
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.common;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Concurrent, bounded interning factory: apply(key) returns the one shared
+ * instance for key, creating it with the factory on the first request.
+ *
+ * Meant for streams that build many equal immutable objects from a small set of
+ * keys, e.g. brands.stream().map(cache) instead of brands.stream().map(Bicycle::new):
+ * a repeated key costs a map lookup instead of an allocation.
+ *
+ * Hits are a plain ConcurrentHashMap read. When the cache grows past maxSize
+ * the thread that noticed it evicts with the CLOCK (second chance) policy:
+ * keys are visited in insertion order, a key used since the last visit gets
+ * another round, the others are dropped. An evicted key simply gets a new
+ * instance on its next request. Concurrent misses on one key still agree on
+ * a single instance.
+ */
+public class FlyweightCache<K, V> implements Function<K, V> {
+
+	private final int maxSize;
+	private final Function<? super K, ? extends V> factory;
+	private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+	private final Queue<K> clock = new ConcurrentLinkedQueue<>();
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public FlyweightCache(int maxSize, Function<? super K, ? extends V> factory) {
+		if(maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.factory = Objects.requireNonNull(factory);
+	}
+
+	/**
+	 * The shared instance for key. key must not be null, and neither may the value
+	 * the factory creates for it.
+	 */
+	@Override
+	public V apply(K key) {
+		Entry<V> entry = entries.get(key);
+		if(entry != null) {
+			hits.increment();
+			// only write when the bit changes, so hot keys do not bounce the cache line
+			if(!entry.referenced) {
+				entry.referenced = true;
+			}
+			return entry.value;
+		}
+		misses.increment();
+		Entry<V> created = new Entry<>(Objects.requireNonNull(factory.apply(key)));
+		Entry<V> existing = entries.putIfAbsent(key, created);
+		if(existing != null) {
+			// another thread created it first: use its instance
+			return existing.value;
+		}
+		clock.add(key);
+		if(entries.size() > maxSize) {
+			evict();
+		}
+		return created.value;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * hits / requests, or 0 before the first request.
+	 */
+	public double getHitRate() {
+		long h = hits.sum();
+		long requests = h + misses.sum();
+		return requests == 0 ? 0.0 : (double)h / requests;
+	}
+
+	/**
+	 * Drops every cached instance; the counters are kept.
+	 */
+	public void clear() {
+		evictionLock.lock();
+		try {
+			// clock first: a key put in the map after its clear() is added to the
+			// clock after this, so no entry ends up cached but never visited
+			clock.clear();
+			entries.clear();
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("FlyweightCache{size=%d, maxSize=%d, hits=%d, misses=%d, evictions=%d, hitRate=%.3f}",
+				size(), maxSize, getHits(), getMisses(), getEvictions(), getHitRate());
+	}
+
+	private void evict() {
+		// one sweeper at a time; the others carry on, the size is only briefly over
+		if(!evictionLock.tryLock()) {
+			return;
+		}
+		try {
+			K key;
+			while(entries.size() > maxSize && (key = clock.poll()) != null) {
+				Entry<V> entry = entries.get(key);
+				if(entry == null) {
+					continue;
+				}
+				if(entry.referenced) {
+					entry.referenced = false;
+					clock.add(key);
+				} else if(entries.remove(key, entry)) {
+					evictions.increment();
+				}
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	private static final class Entry<V> {
+		final V value;
+		volatile boolean referenced;
+
+		Entry(V value) {
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,290 @@
+package com.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+
+/**
+ * groupingBy collectors keyed by a primitive char or int classifier.
+ *
+ * Keys are never boxed while accumulating; groups live in a striped table of
+ * small open-addressing int maps that are read without a lock, only adding a
+ * new key locks its stripe. Counts and sums are LongAdder / DoubleAdder cells,
+ * so threads hitting the same few keys do not serialize; lists are appended
+ * under the lock of the list itself. The collectors are CONCURRENT and
+ * UNORDERED, so a parallel stream feeds every thread into the same table and
+ * there is no per-thread map to merge at the end. The price is that
+ * groupingByChar/groupingByInt lists are in encounter order only for sequential
+ * streams.
+ *
+ * e.g. the StreamDemo groupByAlphabets collector becomes
+ *	empList.parallelStream().collect(GroupingCollectors.groupingByChar(e -> e.getName().charAt(0)))
+ */
+public final class GroupingCollectors {
+
+	/**
+	 * char-producing classifier; the JDK has no ToCharFunction.
+	 */
+	@FunctionalInterface
+	public interface ToCharFunction<T> {
+		char applyAsChar(T value);
+	}
+
+	private GroupingCollectors() {
+	}
+
+	/*********************** char keys ***********************/
+
+	public static <T> Collector<T, ?, Map<Character, List<T>>> groupingByChar(ToCharFunction<? super T> classifier) {
+		return groupingByInt(classifier::applyAsChar, GroupingCollectors::toCharacter);
+	}
+
+	public static <T> Collector<T, ?, Map<Character, Long>> countingByChar(ToCharFunction<? super T> classifier) {
+		return countingByInt(classifier::applyAsChar, GroupingCollectors::toCharacter);
+	}
+
+	public static <T> Collector<T, ?, Map<Character, Double>> summingDoubleByChar(
+			ToCharFunction<? super T> classifier, ToDoubleFunction<? super T> mapper) {
+		return summingDoubleByInt(classifier::applyAsChar, mapper, GroupingCollectors::toCharacter);
+	}
+
+	/**
+	 * Groups mapper's int values (e.g. Employee::getEmpId) per key without boxing them.
+	 */
+	public static <T> Collector<T, ?, Map<Character, IntList>> mappingToIntByChar(
+			ToCharFunction<? super T> classifier, ToIntFunction<? super T> mapper) {
+		return mappingToIntByInt(classifier::applyAsChar, mapper, GroupingCollectors::toCharacter);
+	}
+
+	/*********************** int keys ***********************/
+
+	public static <T> Collector<T, ?, Map<Integer, List<T>>> groupingByInt(ToIntFunction<? super T> classifier) {
+		return groupingByInt(classifier, Integer::valueOf);
+	}
+
+	public static <T> Collector<T, ?, Map<Integer, Long>> countingByInt(ToIntFunction<? super T> classifier) {
+		return countingByInt(classifier, Integer::valueOf);
+	}
+
+	public static <T> Collector<T, ?, Map<Integer, Double>> summingDoubleByInt(
+			ToIntFunction<? super T> classifier, ToDoubleFunction<? super T> mapper) {
+		return summingDoubleByInt(classifier, mapper, Integer::valueOf);
+	}
+
+	public static <T> Collector<T, ?, Map<Integer, IntList>> mappingToIntByInt(
+			ToIntFunction<? super T> classifier, ToIntFunction<? super T> mapper) {
+		return mappingToIntByInt(classifier, mapper, Integer::valueOf);
+	}
+
+	/*********************** implementation ***********************/
+
+	private static <T, K> Collector<T, ?, Map<K, List<T>>> groupingByInt(
+			ToIntFunction<? super T> classifier, IntFunction<K> keyBoxer) {
+		return collector(classifier, ArrayList::new, List::add,
+				(l, r) -> { l.addAll(r); return l; }, Function.identity(), keyBoxer, false);
+	}
+
+	private static <T, K> Collector<T, ?, Map<K, Long>> countingByInt(
+			ToIntFunction<? super T> classifier, IntFunction<K> keyBoxer) {
+		return collector(classifier, LongAdder::new, (a, t) -> a.increment(),
+				(l, r) -> { l.add(r.sum()); return l; }, LongAdder::sum, keyBoxer, true);
+	}
+
+	private static <T, K> Collector<T, ?, Map<K, Double>> summingDoubleByInt(
+			ToIntFunction<? super T> classifier, ToDoubleFunction<? super T> mapper, IntFunction<K> keyBoxer) {
+		return collector(classifier, DoubleAdder::new, (a, t) -> a.add(mapper.applyAsDouble(t)),
+				(l, r) -> { l.add(r.sum()); return l; }, DoubleAdder::sum, keyBoxer, true);
+	}
+
+	private static <T, K> Collector<T, ?, Map<K, IntList>> mappingToIntByInt(
+			ToIntFunction<? super T> classifier, ToIntFunction<? super T> mapper, IntFunction<K> keyBoxer) {
+		return collector(classifier, IntList::new, (a, t) -> a.add(mapper.applyAsInt(t)),
+				(l, r) -> { l.addAll(r); return l; }, Function.identity(), keyBoxer, false);
+	}
+
+	/**
+	 * threadSafe: the downstream container may be updated by several threads at
+	 * once, as an adder can; otherwise every update locks the container.
+	 */
+	private static <T, A, R, K> Collector<T, StripedTable<A>, Map<K, R>> collector(
+			ToIntFunction<? super T> classifier, Supplier<A> downstreamSupplier,
+			BiConsumer<A, ? super T> downstreamAccumulator, BinaryOperator<A> downstreamCombiner,
+			Function<A, R> downstreamFinisher, IntFunction<K> keyBoxer, boolean threadSafe) {
+		return Collector.of(
+				() -> new StripedTable<>(threadSafe),
+				(table, t) -> table.accumulate(classifier.applyAsInt(t), t, downstreamSupplier, downstreamAccumulator),
+				(left, right) -> left.mergeFrom(right, downstreamCombiner),
+				table -> table.toMap(keyBoxer, downstreamFinisher),
+				Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+	}
+
+	private static Character toCharacter(int key) {
+		return (char)key;
+	}
+
+	/**
+	 * int -> A map split into stripes. Lookups take no lock; adding a key locks
+	 * only its stripe, so new groups in different stripes never contend.
+	 */
+	static final class StripedTable<A> {
+
+		private static final int STRIPES = stripeCount();
+
+		private final Stripe[] stripes = new Stripe[STRIPES];
+		private final boolean threadSafe;
+
+		StripedTable(boolean threadSafe) {
+			this.threadSafe = threadSafe;
+			for(int i=0; i<STRIPES; i++) {
+				stripes[i] = new Stripe();
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		<T> void accumulate(int key, T element, Supplier<A> supplier, BiConsumer<A, ? super T> accumulator) {
+			int hash = IntHash.mix(key);
+			Stripe stripe = stripes[hash & (STRIPES - 1)];
+			Object container = stripe.get(key, hash);
+			if(container == null) {
+				container = stripe.getOrCreate(key, hash, supplier);
+			}
+			if(threadSafe) {
+				accumulator.accept((A)container, element);
+			} else {
+				synchronized(container) {
+					accumulator.accept((A)container, element);
+				}
+			}
+		}
+
+		// only reached when the stream decides not to share one container
+		StripedTable<A> mergeFrom(StripedTable<A> other, BinaryOperator<A> combiner) {
+			for(int s=0; s<STRIPES; s++) {
+				Slots from = other.stripes[s].slots;
+				for(int i=0; i<from.keys.length; i++) {
+					Object value = from.values.get(i);
+					if(value != null) {
+						stripes[s].merge(from.keys[i], IntHash.mix(from.keys[i]), value, combiner);
+					}
+				}
+			}
+			return this;
+		}
+
+		@SuppressWarnings("unchecked")
+		<K, R> Map<K, R> toMap(IntFunction<K> keyBoxer, Function<A, R> finisher) {
+			Map<K, R> result = new HashMap<>();
+			for(Stripe stripe : stripes) {
+				Slots slots = stripe.slots;
+				for(int i=0; i<slots.keys.length; i++) {
+					Object value = slots.values.get(i);
+					if(value != null) {
+						result.put(keyBoxer.apply(slots.keys[i]), finisher.apply((A)value));
+					}
+				}
+			}
+			return result;
+		}
+
+		private static int stripeCount() {
+			int wanted = Runtime.getRuntime().availableProcessors() * 4;
+			return Integer.highestOneBit(Math.max(wanted - 1, 1)) << 1;
+		}
+	}
+
+	/**
+	 * One stripe: an open-addressing int map whose slots are replaced, never
+	 * resized in place, and published through a volatile field. A slot's key is
+	 * written before its value and neither changes afterwards, so a reader that
+	 * sees a value also sees its key.
+	 */
+	private static final class Stripe {
+		volatile Slots slots = new Slots(8);
+		private int size;	// guarded by this
+
+		/**
+		 * The value of key, or null. Takes no lock.
+		 */
+		Object get(int key, int hash) {
+			Slots current = slots;
+			return current.values.get(current.slotOf(key, hash));
+		}
+
+		synchronized Object getOrCreate(int key, int hash, Supplier<?> supplier) {
+			Object value = get(key, hash);
+			if(value == null) {
+				value = supplier.get();
+				put(key, hash, value);
+			}
+			return value;
+		}
+
+		@SuppressWarnings("unchecked")
+		synchronized <A> void merge(int key, int hash, Object value, BinaryOperator<A> combiner) {
+			Slots current = slots;
+			int slot = current.slotOf(key, hash);
+			Object existing = current.values.get(slot);
+			if(existing == null) {
+				put(key, hash, value);
+			} else {
+				current.values.set(slot, combiner.apply((A)existing, (A)value));
+			}
+		}
+
+		// under the lock, key not present
+		private void put(int key, int hash, Object value) {
+			Slots current = slots;
+			if(++size > current.keys.length >> 1) {
+				Slots grown = new Slots(current.keys.length << 1);
+				for(int i=0; i<current.keys.length; i++) {
+					Object old = current.values.get(i);
+					if(old != null) {
+						grown.insert(current.keys[i], IntHash.mix(current.keys[i]), old);
+					}
+				}
+				grown.insert(key, hash, value);
+				slots = grown;
+			} else {
+				current.insert(key, hash, value);
+			}
+		}
+	}
+
+	private static final class Slots {
+		final int[] keys;
+		final AtomicReferenceArray<Object> values;
+
+		Slots(int capacity) {
+			keys = new int[capacity];
+			values = new AtomicReferenceArray<>(capacity);
+		}
+
+		// stripe selection used the low bits of the hash, so probe starting from the high bits
+		int slotOf(int key, int hash) {
+			int mask = keys.length - 1;
+			int slot = Integer.rotateRight(hash, 16) & mask;
+			while(values.get(slot) != null && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		void insert(int key, int hash, Object value) {
+			int slot = slotOf(key, hash);
+			keys[slot] = key;
+			values.set(slot, value);
+		}
+	}
+}
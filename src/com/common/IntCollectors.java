@@ -0,0 +1,343 @@
+package com.common;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Collectors for IntStream, which has no collect(Collector) of its own.
+ *
+ * They mirror partitioningBy, groupingBy, distinct, counting and reducing(maxBy/minBy)
+ * from java.util.stream.Collectors but accumulate into primitive containers
+ * (IntList, int hash sets, int-keyed maps), so no value is boxed into an Integer.
+ * All of them combine correctly on parallel streams.
+ *
+ * e.g. the StreamDemo "max even / max odd" reduction becomes
+ *	IntCollectors.collect(IntStream.of(2, 3, 4, 7, 10, 13),
+ *			IntCollectors.partitioningBy(i -> i%2 == 0, IntCollectors.max()))
+ */
+public final class IntCollectors {
+
+	/**
+	 * Mutable reduction over an IntStream: the int counterpart of java.util.stream.Collector.
+	 */
+	public interface IntCollector<A, R> {
+		Supplier<A> supplier();
+
+		ObjIntConsumer<A> accumulator();
+
+		/**
+		 * Merges the second container into the first.
+		 */
+		BiConsumer<A, A> combiner();
+
+		Function<A, R> finisher();
+
+		static <A, R> IntCollector<A, R> of(Supplier<A> supplier, ObjIntConsumer<A> accumulator,
+				BiConsumer<A, A> combiner, Function<A, R> finisher) {
+			return new IntCollector<A, R>() {
+				@Override
+				public Supplier<A> supplier() {
+					return supplier;
+				}
+
+				@Override
+				public ObjIntConsumer<A> accumulator() {
+					return accumulator;
+				}
+
+				@Override
+				public BiConsumer<A, A> combiner() {
+					return combiner;
+				}
+
+				@Override
+				public Function<A, R> finisher() {
+					return finisher;
+				}
+			};
+		}
+	}
+
+	private IntCollectors() {
+	}
+
+	public static <A, R> R collect(IntStream stream, IntCollector<A, R> collector) {
+		A container = stream.collect(collector.supplier(), collector.accumulator(), collector.combiner());
+		return collector.finisher().apply(container);
+	}
+
+	/*********************** simple reductions ***********************/
+
+	public static IntCollector<IntList, IntList> toList() {
+		return IntCollector.of(IntList::new, IntList::add, IntList::addAll, Function.identity());
+	}
+
+	/**
+	 * Distinct values in first-encounter order (for ordered streams).
+	 */
+	public static IntCollector<IntHashSet, IntList> distinct() {
+		return IntCollector.of(IntHashSet::new, IntHashSet::add, IntHashSet::addAll, IntHashSet::toList);
+	}
+
+	public static IntCollector<long[], Long> counting() {
+		return IntCollector.of(() -> new long[1], (a, i) -> a[0]++, (l, r) -> l[0] += r[0], a -> a[0]);
+	}
+
+	/**
+	 * Sum as a long, so large int streams do not overflow.
+	 */
+	public static IntCollector<long[], Long> summing() {
+		return IntCollector.of(() -> new long[1], (a, i) -> a[0] += i, (l, r) -> l[0] += r[0], a -> a[0]);
+	}
+
+	public static IntCollector<Extreme, OptionalInt> max() {
+		return IntCollector.of(() -> new Extreme(true), Extreme::accept, Extreme::merge, Extreme::result);
+	}
+
+	public static IntCollector<Extreme, OptionalInt> min() {
+		return IntCollector.of(() -> new Extreme(false), Extreme::accept, Extreme::merge, Extreme::result);
+	}
+
+	/*********************** partitioning / grouping ***********************/
+
+	public static IntCollector<?, Map<Boolean, IntList>> partitioningBy(IntPredicate predicate) {
+		return partitioningBy(predicate, toList());
+	}
+
+	/**
+	 * Splits the stream by predicate and reduces each side with downstream.
+	 * The result always has both a true and a false entry.
+	 */
+	public static <A, R> IntCollector<?, Map<Boolean, R>> partitioningBy(IntPredicate predicate, IntCollector<A, R> downstream) {
+		Supplier<A> supplier = downstream.supplier();
+		ObjIntConsumer<A> accumulator = downstream.accumulator();
+		BiConsumer<A, A> combiner = downstream.combiner();
+		Function<A, R> finisher = downstream.finisher();
+		return IntCollector.<Partition<A>, Map<Boolean, R>>of(
+				() -> new Partition<>(supplier.get(), supplier.get()),
+				(p, i) -> accumulator.accept(predicate.test(i) ? p.forTrue : p.forFalse, i),
+				(l, r) -> {
+					combiner.accept(l.forTrue, r.forTrue);
+					combiner.accept(l.forFalse, r.forFalse);
+				},
+				p -> {
+					Map<Boolean, R> result = new HashMap<>(4);
+					result.put(Boolean.TRUE, finisher.apply(p.forTrue));
+					result.put(Boolean.FALSE, finisher.apply(p.forFalse));
+					return result;
+				});
+	}
+
+	public static IntCollector<?, Map<Integer, IntList>> groupingBy(IntUnaryOperator classifier) {
+		return groupingBy(classifier, toList());
+	}
+
+	/**
+	 * Groups by an int key and reduces every group with downstream. Keys are only
+	 * boxed once per group, when the result map is built.
+	 */
+	public static <A, R> IntCollector<?, Map<Integer, R>> groupingBy(IntUnaryOperator classifier, IntCollector<A, R> downstream) {
+		Supplier<A> supplier = downstream.supplier();
+		ObjIntConsumer<A> accumulator = downstream.accumulator();
+		BiConsumer<A, A> combiner = downstream.combiner();
+		Function<A, R> finisher = downstream.finisher();
+		return IntCollector.<IntKeyMap<A>, Map<Integer, R>>of(
+				IntKeyMap::new,
+				(m, i) -> accumulator.accept(m.getOrCreate(classifier.applyAsInt(i), supplier), i),
+				(l, r) -> r.forEach((key, value) -> {
+					A existing = l.get(key);
+					if(existing == null) {
+						l.getOrCreate(key, () -> value);
+					} else {
+						combiner.accept(existing, value);
+					}
+				}),
+				m -> {
+					Map<Integer, R> result = new HashMap<>();
+					m.forEach((key, value) -> result.put(key, finisher.apply(value)));
+					return result;
+				});
+	}
+
+	/*********************** containers ***********************/
+
+	static final class Partition<A> {
+		final A forTrue;
+		final A forFalse;
+
+		Partition(A forTrue, A forFalse) {
+			this.forTrue = forTrue;
+			this.forFalse = forFalse;
+		}
+	}
+
+	/**
+	 * Running max or min.
+	 */
+	public static final class Extreme {
+		private final boolean max;
+		private boolean present;
+		private int value;
+
+		Extreme(boolean max) {
+			this.max = max;
+		}
+
+		void accept(int i) {
+			if(!present) {
+				present = true;
+				value = i;
+			} else {
+				value = max ? Math.max(value, i) : Math.min(value, i);
+			}
+		}
+
+		void merge(Extreme other) {
+			if(other.present) {
+				accept(other.value);
+			}
+		}
+
+		OptionalInt result() {
+			return present ? OptionalInt.of(value) : OptionalInt.empty();
+		}
+	}
+
+	/**
+	 * Open-addressing int set that remembers insertion order in an IntList.
+	 */
+	public static final class IntHashSet {
+		private int[] table = new int[16];
+		private boolean[] used = new boolean[16];
+		private final IntList order = new IntList();
+
+		boolean add(int value) {
+			int mask = table.length - 1;
+			int slot = IntHash.mix(value) & mask;
+			while(used[slot]) {
+				if(table[slot] == value) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = value;
+			used[slot] = true;
+			order.add(value);
+			if(order.size() > table.length >> 1) {
+				rehash();
+			}
+			return true;
+		}
+
+		boolean contains(int value) {
+			int mask = table.length - 1;
+			int slot = IntHash.mix(value) & mask;
+			while(used[slot]) {
+				if(table[slot] == value) {
+					return true;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return false;
+		}
+
+		void addAll(IntHashSet other) {
+			for(int i=0; i<other.order.size(); i++) {
+				add(other.order.get(i));
+			}
+		}
+
+		IntList toList() {
+			return order;
+		}
+
+		private void rehash() {
+			table = new int[table.length << 1];
+			used = new boolean[table.length];
+			int mask = table.length - 1;
+			for(int i=0; i<order.size(); i++) {
+				int value = order.get(i);
+				int slot = IntHash.mix(value) & mask;
+				while(used[slot]) {
+					slot = (slot + 1) & mask;
+				}
+				table[slot] = value;
+				used[slot] = true;
+			}
+		}
+	}
+
+	/**
+	 * Open-addressing int -> A map used by groupingBy.
+	 */
+	static final class IntKeyMap<A> {
+
+		interface Entry<A> {
+			void accept(int key, A value);
+		}
+
+		private int[] keys = new int[16];
+		private Object[] values = new Object[16];
+		private int size;
+
+		@SuppressWarnings("unchecked")
+		A get(int key) {
+			return (A)values[slotOf(key)];
+		}
+
+		@SuppressWarnings("unchecked")
+		A getOrCreate(int key, Supplier<A> supplier) {
+			int slot = slotOf(key);
+			if(values[slot] == null) {
+				A value = supplier.get();
+				keys[slot] = key;
+				values[slot] = value;
+				if(++size > keys.length >> 1) {
+					rehash();
+				}
+				return value;
+			}
+			return (A)values[slot];
+		}
+
+		@SuppressWarnings("unchecked")
+		void forEach(Entry<A> action) {
+			for(int i=0; i<keys.length; i++) {
+				if(values[i] != null) {
+					action.accept(keys[i], (A)values[i]);
+				}
+			}
+		}
+
+		private int slotOf(int key) {
+			int mask = keys.length - 1;
+			int slot = IntHash.mix(key) & mask;
+			while(values[slot] != null && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private void rehash() {
+			int[] oldKeys = keys;
+			Object[] oldValues = values;
+			keys = new int[oldKeys.length << 1];
+			values = new Object[oldKeys.length << 1];
+			for(int i=0; i<oldKeys.length; i++) {
+				if(oldValues[i] != null) {
+					int slot = slotOf(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.common;
+
+/**
+ * The hash spreader shared by the int-keyed open-addressing tables of this
+ * package (EmployeeRegistry, IntCollectors, GroupingCollectors, Memoizer).
+ */
+final class IntHash {
+
+	private IntHash() {
+	}
+
+	/**
+	 * Fibonacci hashing: multiplies by 2^32 / golden ratio and folds the high half
+	 * into the low one, so runs of keys such as sequential ids spread over all
+	 * slots whatever bits the table masks.
+	 */
+	static int mix(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,119 @@
+package com.common;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Growable int array, the primitive counterpart of ArrayList<Integer>.
+ * Not thread-safe.
+ */
+public class IntList {
+
+	private int[] elements;
+	private int size;
+
+	public IntList() {
+		this(10);
+	}
+
+	public IntList(int initialCapacity) {
+		elements = new int[Math.max(initialCapacity, 1)];
+	}
+
+	public static IntList of(int... values) {
+		IntList list = new IntList(values.length);
+		list.addAll(values, 0, values.length);
+		return list;
+	}
+
+	public void add(int value) {
+		if(size == elements.length) {
+			elements = Arrays.copyOf(elements, size << 1);
+		}
+		elements[size++] = value;
+	}
+
+	public void addAll(IntList other) {
+		addAll(other.elements, 0, other.size);
+	}
+
+	public void addAll(int[] values, int from, int to) {
+		int count = to - from;
+		ensureCapacity(size + count);
+		System.arraycopy(values, from, elements, size, count);
+		size += count;
+	}
+
+	public int get(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+		}
+		return elements[index];
+	}
+
+	public void set(int index, int value) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+		}
+		elements[index] = value;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public void ensureCapacity(int minCapacity) {
+		if(minCapacity > elements.length) {
+			elements = Arrays.copyOf(elements, Math.max(minCapacity, elements.length << 1));
+		}
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(elements, size);
+	}
+
+	public IntStream stream() {
+		return Arrays.stream(elements, 0, size);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj) {
+			return true;
+		}
+		if(!(obj instanceof IntList)) {
+			return false;
+		}
+		IntList other = (IntList)obj;
+		return Arrays.equals(elements, 0, size, other.elements, 0, other.size);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 1;
+		for(int i=0; i<size; i++) {
+			result = 31 * result + elements[i];
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for(int i=0; i<size; i++) {
+			if(i > 0) {
+				sb.append(", ");
+			}
+			sb.append(elements[i]);
+		}
+		return sb.append(']').toString();
+	}
+}
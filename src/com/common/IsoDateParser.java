@@ -0,0 +1,439 @@
+package com.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.chrono.IsoChronology;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parses ISO dates, times and timestamps straight into primitives, for feeds with
+ * many millions of them:
+ *	long day = IsoDateParser.parseEpochDay("2015-02-20");				// LocalDate.toEpochDay()
+ *	long nanos = IsoDateParser.parseNanoOfDay("06:30:20.5");			// LocalTime.toNanoOfDay()
+ *	long millis = IsoDateParser.parseEpochMillis("2020-04-23T19:58:50.200+02:00");	// Instant.toEpochMilli()
+ *
+ * LocalDate.parse() and friends run the general DateTimeFormatter machinery and
+ * allocate a Parsed object, a field map and the result for every call. The
+ * layouts that make up nearly all real input are fixed, so they are decoded here
+ * digit by digit, from a CharSequence or from ASCII bytes at any position, with
+ * no allocation:
+ *	yyyy-MM-dd
+ *	HH:mm[:ss[.fraction]]		(1 to 9 fraction digits)
+ *	yyyy-MM-ddTHH:mm[:ss[.fraction]](Z|+HH:mm|+HH:mm:ss)
+ *
+ * Anything else - years outside 0000..9999, lower case letters, a zone region
+ * like [Europe/Paris], an invalid value such as February 30 - is handed to the
+ * DateTimeFormatter the JDK would use (ISO_LOCAL_DATE, ISO_LOCAL_TIME, and
+ * ISO_DATE_TIME reading the offset leniently as ZonedDateTime.parse() does, so
+ * an offset like +02 is accepted), and the result, or the DateTimeParseException, is
+ * exactly what LocalDate.parse(), LocalTime.parse() and ZonedDateTime.parse()
+ * give. Only the fallback allocates; getFallbacks() tells how often it was needed.
+ *
+ * A timestamp without an offset or zone has no epoch millis: parseEpochMillis()
+ * rejects it. Its parts can be read with parseEpochDay(text, 0, 10) and
+ * parseNanoOfDay(text, 11, text.length()). Fractions finer than a millisecond are
+ * truncated, as Instant.toEpochMilli() does.
+ */
+public final class IsoDateParser {
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+	private static final int SECONDS_PER_DAY = 86_400;
+	private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+	private static final long DAYS_0000_TO_1970 = 719_528L;
+
+	/**
+	 * Returned by the fast paths when the input needs the fallback. No valid result
+	 * of any of them can have this value.
+	 */
+	private static final long SLOW = Long.MIN_VALUE;
+
+	/**
+	 * POW10[n] scales a fraction of 9 - n digits to nanoseconds.
+	 */
+	private static final long[] POW10 = {
+			1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L};
+
+	/**
+	 * ISO_DATE_TIME, except that the offset is parsed leniently like in
+	 * ISO_OFFSET_DATE_TIME, so +HH is accepted as well as +HH:mm and +HH:mm:ss.
+	 */
+	private static final DateTimeFormatter DATE_TIME = new DateTimeFormatterBuilder()
+			.append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+			.optionalStart()
+			.parseLenient()
+			.appendOffsetId()
+			.parseStrict()
+			.optionalStart()
+			.appendLiteral('[')
+			.parseCaseSensitive()
+			.appendZoneRegionId()
+			.appendLiteral(']')
+			.toFormatter()
+			.withResolverStyle(ResolverStyle.STRICT)
+			.withChronology(IsoChronology.INSTANCE);
+
+	private static final LongAdder fallbacks = new LongAdder();
+
+	private IsoDateParser() {
+	}
+
+	/*********************** epoch day ***********************/
+
+	public static long parseEpochDay(CharSequence text) {
+		return parseEpochDay(text, 0, text.length());
+	}
+
+	/**
+	 * The epoch day of the ISO date in text[start, end).
+	 */
+	public static long parseEpochDay(CharSequence text, int start, int end) {
+		Objects.checkFromToIndex(start, end, text.length());
+		long day = end - start == 10 ? epochDay(text, start) : SLOW;
+		return day != SLOW ? day : slowEpochDay(text.subSequence(start, end));
+	}
+
+	/**
+	 * The epoch day of the ISO date in the ASCII bytes ascii[start, end).
+	 */
+	public static long parseEpochDay(byte[] ascii, int start, int end) {
+		Objects.checkFromToIndex(start, end, ascii.length);
+		long day = end - start == 10 ? epochDay(ascii, start) : SLOW;
+		return day != SLOW ? day : slowEpochDay(ascii(ascii, start, end));
+	}
+
+	/*********************** nano of day ***********************/
+
+	public static long parseNanoOfDay(CharSequence text) {
+		return parseNanoOfDay(text, 0, text.length());
+	}
+
+	/**
+	 * The nano of day of the ISO local time in text[start, end).
+	 */
+	public static long parseNanoOfDay(CharSequence text, int start, int end) {
+		Objects.checkFromToIndex(start, end, text.length());
+		long nanos = nanoOfDay(text, start, end);
+		return nanos != SLOW ? nanos : slowNanoOfDay(text.subSequence(start, end));
+	}
+
+	/**
+	 * The nano of day of the ISO local time in the ASCII bytes ascii[start, end).
+	 */
+	public static long parseNanoOfDay(byte[] ascii, int start, int end) {
+		Objects.checkFromToIndex(start, end, ascii.length);
+		long nanos = nanoOfDay(ascii, start, end);
+		return nanos != SLOW ? nanos : slowNanoOfDay(ascii(ascii, start, end));
+	}
+
+	/*********************** epoch millis ***********************/
+
+	public static long parseEpochMillis(CharSequence text) {
+		return parseEpochMillis(text, 0, text.length());
+	}
+
+	/**
+	 * The epoch millis of the ISO timestamp in text[start, end), which must have an
+	 * offset or a zone.
+	 */
+	public static long parseEpochMillis(CharSequence text, int start, int end) {
+		Objects.checkFromToIndex(start, end, text.length());
+		long millis = epochMillis(text, start, end);
+		return millis != SLOW ? millis : slowEpochMillis(text.subSequence(start, end));
+	}
+
+	/**
+	 * The epoch millis of the ISO timestamp in the ASCII bytes ascii[start, end).
+	 */
+	public static long parseEpochMillis(byte[] ascii, int start, int end) {
+		Objects.checkFromToIndex(start, end, ascii.length);
+		long millis = epochMillis(ascii, start, end);
+		return millis != SLOW ? millis : slowEpochMillis(ascii(ascii, start, end));
+	}
+
+	/**
+	 * How many inputs so far did not fit a fixed layout and went through
+	 * DateTimeFormatter, including the ones that turned out to be invalid.
+	 */
+	public static long getFallbacks() {
+		return fallbacks.sum();
+	}
+
+	/*********************** fast paths: CharSequence ***********************/
+
+	private static long epochDay(CharSequence s, int i) {
+		if(s.charAt(i + 4) != '-' || s.charAt(i + 7) != '-') {
+			return SLOW;
+		}
+		int hi = digits2(s, i);
+		int lo = digits2(s, i + 2);
+		int month = digits2(s, i + 5);
+		int day = digits2(s, i + 8);
+		if((hi | lo | month | day) < 0) {
+			return SLOW;
+		}
+		return epochDay(hi * 100 + lo, month, day);
+	}
+
+	private static long nanoOfDay(CharSequence s, int i, int end) {
+		int length = end - i;
+		if(length < 5 || s.charAt(i + 2) != ':') {
+			return SLOW;
+		}
+		int hour = digits2(s, i);
+		int minute = digits2(s, i + 3);
+		int second = 0;
+		long fraction = 0;
+		if(length > 5) {
+			if(length < 8 || s.charAt(i + 5) != ':') {
+				return SLOW;
+			}
+			second = digits2(s, i + 6);
+			if(length > 8) {
+				// '.' and 1 to 9 digits
+				if(length < 10 || length > 18 || s.charAt(i + 8) != '.') {
+					return SLOW;
+				}
+				for(int j=i + 9; j<end; j++) {
+					int d = s.charAt(j) - '0';
+					if(d < 0 || d > 9) {
+						return SLOW;
+					}
+					fraction = fraction * 10 + d;
+				}
+				fraction *= POW10[18 - length];
+			}
+		}
+		return nanoOfDay(hour, minute, second, fraction);
+	}
+
+	private static long epochMillis(CharSequence s, int i, int end) {
+		// date, 'T', at least HH:mm, then the offset
+		if(end - i < 17 || s.charAt(i + 10) != 'T') {
+			return SLOW;
+		}
+		int offsetSeconds;
+		int timeEnd;
+		char last = s.charAt(end - 1);
+		if(last == 'Z') {
+			offsetSeconds = 0;
+			timeEnd = end - 1;
+		} else {
+			// +HH:mm or +HH:mm:ss; neither sign can occur in the time itself
+			int sign = end - 6;
+			if(!isSign(s.charAt(sign))) {
+				sign = end - 9;
+				if(sign <= i + 10 || !isSign(s.charAt(sign)) || s.charAt(end - 3) != ':') {
+					return SLOW;
+				}
+			}
+			if(s.charAt(sign + 3) != ':') {
+				return SLOW;
+			}
+			int hours = digits2(s, sign + 1);
+			int minutes = digits2(s, sign + 4);
+			int seconds = end - sign == 9 ? digits2(s, sign + 7) : 0;
+			offsetSeconds = offsetSeconds(s.charAt(sign), hours, minutes, seconds);
+			timeEnd = sign;
+		}
+		if(offsetSeconds == Integer.MIN_VALUE) {
+			return SLOW;
+		}
+		long day = epochDay(s, i);
+		long nanos = day == SLOW ? SLOW : nanoOfDay(s, i + 11, timeEnd);
+		return nanos == SLOW ? SLOW : epochMillis(day, nanos, offsetSeconds);
+	}
+
+	private static int digits2(CharSequence s, int i) {
+		int a = s.charAt(i) - '0';
+		int b = s.charAt(i + 1) - '0';
+		return (a | b) < 0 || a > 9 || b > 9 ? -1 : a * 10 + b;
+	}
+
+	/*********************** fast paths: ASCII bytes ***********************/
+
+	private static long epochDay(byte[] s, int i) {
+		if(s[i + 4] != '-' || s[i + 7] != '-') {
+			return SLOW;
+		}
+		int hi = digits2(s, i);
+		int lo = digits2(s, i + 2);
+		int month = digits2(s, i + 5);
+		int day = digits2(s, i + 8);
+		if((hi | lo | month | day) < 0) {
+			return SLOW;
+		}
+		return epochDay(hi * 100 + lo, month, day);
+	}
+
+	private static long nanoOfDay(byte[] s, int i, int end) {
+		int length = end - i;
+		if(length < 5 || s[i + 2] != ':') {
+			return SLOW;
+		}
+		int hour = digits2(s, i);
+		int minute = digits2(s, i + 3);
+		int second = 0;
+		long fraction = 0;
+		if(length > 5) {
+			if(length < 8 || s[i + 5] != ':') {
+				return SLOW;
+			}
+			second = digits2(s, i + 6);
+			if(length > 8) {
+				if(length < 10 || length > 18 || s[i + 8] != '.') {
+					return SLOW;
+				}
+				for(int j=i + 9; j<end; j++) {
+					int d = s[j] - '0';
+					if(d < 0 || d > 9) {
+						return SLOW;
+					}
+					fraction = fraction * 10 + d;
+				}
+				fraction *= POW10[18 - length];
+			}
+		}
+		return nanoOfDay(hour, minute, second, fraction);
+	}
+
+	private static long epochMillis(byte[] s, int i, int end) {
+		if(end - i < 17 || s[i + 10] != 'T') {
+			return SLOW;
+		}
+		int offsetSeconds;
+		int timeEnd;
+		byte last = s[end - 1];
+		if(last == 'Z') {
+			offsetSeconds = 0;
+			timeEnd = end - 1;
+		} else {
+			int sign = end - 6;
+			if(!isSign(s[sign])) {
+				sign = end - 9;
+				if(sign <= i + 10 || !isSign(s[sign]) || s[end - 3] != ':') {
+					return SLOW;
+				}
+			}
+			if(s[sign + 3] != ':') {
+				return SLOW;
+			}
+			int hours = digits2(s, sign + 1);
+			int minutes = digits2(s, sign + 4);
+			int seconds = end - sign == 9 ? digits2(s, sign + 7) : 0;
+			offsetSeconds = offsetSeconds((char)s[sign], hours, minutes, seconds);
+			timeEnd = sign;
+		}
+		if(offsetSeconds == Integer.MIN_VALUE) {
+			return SLOW;
+		}
+		long day = epochDay(s, i);
+		long nanos = day == SLOW ? SLOW : nanoOfDay(s, i + 11, timeEnd);
+		return nanos == SLOW ? SLOW : epochMillis(day, nanos, offsetSeconds);
+	}
+
+	private static int digits2(byte[] s, int i) {
+		int a = s[i] - '0';
+		int b = s[i + 1] - '0';
+		return (a | b) < 0 || a > 9 || b > 9 ? -1 : a * 10 + b;
+	}
+
+	/*********************** field arithmetic ***********************/
+
+	/**
+	 * As LocalDate.of(year, month, day).toEpochDay() for years 0..9999, or SLOW if
+	 * the date does not exist.
+	 */
+	static long epochDay(int year, int month, int day) {
+		if(month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+			return SLOW;
+		}
+		long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+		total += (367 * month - 362) / 12 + day - 1;
+		if(month > 2) {
+			total -= isLeapYear(year) ? 1 : 2;
+		}
+		return total - DAYS_0000_TO_1970;
+	}
+
+	static boolean isLeapYear(int year) {
+		return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+	}
+
+	static int lengthOfMonth(int year, int month) {
+		switch(month) {
+		case 2:
+			return isLeapYear(year) ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+
+	/**
+	 * Invalid parts come in as -1 from digits2.
+	 */
+	private static long nanoOfDay(int hour, int minute, int second, long fraction) {
+		if(hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+			return SLOW;
+		}
+		return (hour * 3600 + minute * 60 + second) * NANOS_PER_SECOND + fraction;
+	}
+
+	/**
+	 * The offset in seconds, or Integer.MIN_VALUE if it is out of range.
+	 */
+	private static int offsetSeconds(char sign, int hours, int minutes, int seconds) {
+		if(hours < 0 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
+			return Integer.MIN_VALUE;
+		}
+		int total = hours * 3600 + minutes * 60 + seconds;
+		if(total > MAX_OFFSET_SECONDS) {
+			return Integer.MIN_VALUE;
+		}
+		return sign == '-' ? -total : total;
+	}
+
+	private static long epochMillis(long epochDay, long nanoOfDay, int offsetSeconds) {
+		long seconds = epochDay * SECONDS_PER_DAY + nanoOfDay / NANOS_PER_SECOND - offsetSeconds;
+		return seconds * 1000 + nanoOfDay % NANOS_PER_SECOND / 1_000_000;
+	}
+
+	private static boolean isSign(int c) {
+		return c == '+' || c == '-';
+	}
+
+	/*********************** fallback ***********************/
+
+	private static long slowEpochDay(CharSequence text) {
+		fallbacks.increment();
+		return DateTimeFormatter.ISO_LOCAL_DATE.parse(text, LocalDate::from).toEpochDay();
+	}
+
+	private static long slowNanoOfDay(CharSequence text) {
+		fallbacks.increment();
+		return DateTimeFormatter.ISO_LOCAL_TIME.parse(text, LocalTime::from).toNanoOfDay();
+	}
+
+	/**
+	 * @throws DateTimeParseException also when text is valid but has no offset or zone
+	 */
+	private static long slowEpochMillis(CharSequence text) {
+		fallbacks.increment();
+		return DATE_TIME.parse(text, Instant::from).toEpochMilli();
+	}
+
+	private static String ascii(byte[] bytes, int start, int end) {
+		return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+	}
+}
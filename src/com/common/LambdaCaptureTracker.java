@@ -0,0 +1,284 @@
+package com.common;
+
+import java.io.PrintStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts, per call site, how often a lambda / anonymous class / method reference
+ * expression allocates a new object.
+ *
+ * Wrap the expression where it is created:
+ *	empList.removeIf(LambdaCaptureTracker.track(emp -> emp.getSalary() > limit));
+ * A non-capturing lambda is linked once to a single cached instance, so its site
+ * reports one allocation however often it runs; that is decided from the class,
+ * a lambda class without fields. A capturing lambda (it reads a local or this)
+ * allocates on every evaluation, and so does an anonymous class; for those the
+ * site counts the distinct instances it has seen, held weakly and compared by
+ * identity. That count is approximate: an instance made elsewhere and tracked
+ * again is counted once, however often it was passed. The report also lists the
+ * captured fields and an estimate of the bytes per instance.
+ *
+ * Tracking is off unless the JVM is started with -Dlambda.capture.tracking=true
+ * (or setEnabled(true) is called); when off, track(x) just returns x. When on, every
+ * call walks the stack to find its caller, so this is a diagnostic tool, not
+ * something to leave enabled in production.
+ */
+public final class LambdaCaptureTracker {
+
+	private static volatile boolean enabled = Boolean.getBoolean("lambda.capture.tracking");
+
+	private static final ConcurrentHashMap<String, Site> SITES = new ConcurrentHashMap<>();
+
+	private static final StackWalker WALKER = StackWalker.getInstance();
+
+	private LambdaCaptureTracker() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	/**
+	 * Records one evaluation of the functional object at the caller's source line
+	 * and returns it unchanged.
+	 */
+	public static <T> T track(T functionalObject) {
+		if(enabled && functionalObject != null) {
+			String site = WALKER.walk(frames -> frames.skip(1).findFirst()
+					.map(f -> f.getClassName() + "." + f.getMethodName() + ":" + f.getLineNumber())
+					.orElse("?"));
+			record(site, functionalObject);
+		}
+		return functionalObject;
+	}
+
+	/**
+	 * Same as track(functionalObject), under an explicit site name.
+	 */
+	public static <T> T track(String site, T functionalObject) {
+		if(enabled && functionalObject != null) {
+			record(site, functionalObject);
+		}
+		return functionalObject;
+	}
+
+	/**
+	 * Every site seen so far, most allocations first.
+	 */
+	public static List<Site> report() {
+		List<Site> sites = new ArrayList<>(SITES.values());
+		sites.sort(Comparator.comparingLong(Site::getAllocations).reversed().thenComparing(Site::getName));
+		return sites;
+	}
+
+	public static void print(PrintStream out) {
+		for(Site site : report()) {
+			out.println(site);
+		}
+	}
+
+	public static void reset() {
+		SITES.clear();
+	}
+
+	private static void record(String name, Object instance) {
+		// every lambda expression and anonymous class has a class of its own, which
+		// tells apart several expressions on one source line
+		Class<?> type = instance.getClass();
+		String key = name + '|' + type.getName();
+		Site site = SITES.get(key);
+		if(site == null) {
+			site = SITES.computeIfAbsent(key, k -> new Site(name, type));
+		}
+		site.record(instance);
+	}
+
+	/**
+	 * Statistics of one call site.
+	 */
+	public static final class Site {
+		private final String name;
+		private final String type;
+		private final String kind;
+		private final List<String> captured = new ArrayList<>();
+		private final long instanceBytes;
+		private final LongAdder evaluations = new LongAdder();
+		private final LongAdder allocations = new LongAdder();
+		// a lambda class with no fields: the JVM hands out one cached instance
+		private final boolean cached;
+		private final IdentityWeakSet seen;
+
+		Site(String name, Class<?> type) {
+			this.name = name;
+			this.type = type.getName();
+			this.kind = type.isSynthetic() ? "lambda" : (type.isAnonymousClass() ? "anonymous class" : "class");
+			long bytes = 12;	// object header with compressed class pointers
+			for(Class<?> c=type; c != null && c != Object.class; c=c.getSuperclass()) {
+				for(Field field : c.getDeclaredFields()) {
+					if(!Modifier.isStatic(field.getModifiers())) {
+						captured.add(field.getType().getSimpleName() + " " + field.getName());
+						bytes += fieldBytes(field.getType());
+					}
+				}
+			}
+			this.instanceBytes = (bytes + 7) & ~7L;
+			this.cached = type.isSynthetic() && captured.isEmpty();
+			this.seen = cached ? null : new IdentityWeakSet();
+		}
+
+		void record(Object instance) {
+			evaluations.increment();
+			if(!cached && seen.add(instance)) {
+				allocations.increment();
+			}
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public String getKind() {
+			return kind;
+		}
+
+		/**
+		 * Instance fields of the functional object: for a lambda, the captured values.
+		 */
+		public List<String> getCaptured() {
+			return captured;
+		}
+
+		public long getEvaluations() {
+			return evaluations.sum();
+		}
+
+		public long getAllocations() {
+			if(cached) {
+				return getEvaluations() == 0 ? 0 : 1;
+			}
+			return allocations.sum();
+		}
+
+		/**
+		 * Estimated shallow size of one instance (compressed oops, 8-byte alignment).
+		 */
+		public long getInstanceBytes() {
+			return instanceBytes;
+		}
+
+		public long getAllocatedBytes() {
+			return getAllocations() * instanceBytes;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s [%s] evaluations=%d allocations=%d ~%d bytes each, %d total, captures %s",
+					name, kind, getEvaluations(), getAllocations(), instanceBytes, getAllocatedBytes(), captured);
+		}
+
+		private static int fieldBytes(Class<?> type) {
+			if(type == long.class || type == double.class) {
+				return 8;
+			}
+			if(type == byte.class || type == boolean.class) {
+				return 1;
+			}
+			if(type == short.class || type == char.class) {
+				return 2;
+			}
+			return 4;	// int, float, compressed reference
+		}
+	}
+
+	/**
+	 * Set of objects compared by identity that does not keep its elements alive:
+	 * a chained hash table of weak references, purged of the cleared ones on add.
+	 */
+	private static final class IdentityWeakSet {
+		private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+		private Ref[] table = new Ref[16];
+		private int size;
+
+		/**
+		 * Adds o; returns false if it was already in the set.
+		 */
+		synchronized boolean add(Object o) {
+			expunge();
+			int hash = System.identityHashCode(o);
+			int index = hash & (table.length - 1);
+			for(Ref r=table[index]; r != null; r=r.next) {
+				if(r.get() == o) {
+					return false;
+				}
+			}
+			table[index] = new Ref(o, hash, queue, table[index]);
+			if(++size > table.length - (table.length >> 2)) {
+				resize();
+			}
+			return true;
+		}
+
+		private void expunge() {
+			Reference<?> cleared;
+			while((cleared = queue.poll()) != null) {
+				Ref ref = (Ref)cleared;
+				int index = ref.hash & (table.length - 1);
+				Ref prev = null;
+				for(Ref r=table[index]; r != null; prev=r, r=r.next) {
+					if(r == ref) {
+						if(prev == null) {
+							table[index] = r.next;
+						} else {
+							prev.next = r.next;
+						}
+						size--;
+						break;
+					}
+				}
+			}
+		}
+
+		private void resize() {
+			Ref[] old = table;
+			table = new Ref[old.length << 1];
+			for(Ref head : old) {
+				Ref r = head;
+				while(r != null) {
+					Ref next = r.next;
+					int index = r.hash & (table.length - 1);
+					r.next = table[index];
+					table[index] = r;
+					r = next;
+				}
+			}
+		}
+
+		private static final class Ref extends WeakReference<Object> {
+			final int hash;
+			Ref next;
+
+			Ref(Object referent, int hash, ReferenceQueue<Object> queue, Ref next) {
+				super(referent, queue);
+				this.hash = hash;
+				this.next = next;
+			}
+		}
+	}
+}
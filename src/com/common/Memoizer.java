@@ -0,0 +1,803 @@
+package com.common;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Bounded memoization of pure functions, e.g. in a stream pipeline:
+ *	IntFunction<Employee> employees = Memoizer.builder().maximumSize(10_000)
+ *			.intFunction(StreamDemo::getEmployee);
+ *	ids.parallel().mapToObj(employees)...
+ *
+ * Results are kept in a concurrent cache of about maximumSize entries, split into
+ * independently locked segments so parallel streams rarely contend. When a segment
+ * is full an entry is evicted with one of two policies:
+ *  - LRU: the least recently used entry;
+ *  - W_TINY_LFU (the default): the scheme of Caffeine. New entries enter a small
+ *    LRU window; an entry leaving the window only replaces the main area's LRU
+ *    victim if a frequency sketch has seen it more often, so one-off arguments do
+ *    not flush out the hot ones. The main area is a segmented LRU (probation, then
+ *    protected once hit again).
+ * expireAfterWrite drops entries older than the given duration.
+ *
+ * intFunction keys are kept as ints (no Integer boxing), toDoubleFunction values
+ * as doubles. memoize(Class, target) wraps any other functional interface, keyed
+ * by its argument list. Every memoized function also implements Memoized, for
+ * hit/miss/eviction statistics.
+ *
+ * The function is called outside the cache locks, so two threads that miss on
+ * the same argument at the same time may both call it; both get the value that
+ * was cached first. That is only harmless for pure functions, which is the point.
+ */
+public final class Memoizer {
+
+	public enum Eviction {
+		LRU, W_TINY_LFU
+	}
+
+	private Memoizer() {
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Statistics of a memoized function (of the proxy's Memoized side for memoize()).
+	 */
+	public static Stats stats(Object memoized) {
+		if(memoized instanceof Memoized) {
+			return ((Memoized)memoized).stats();
+		}
+		throw new IllegalArgumentException("not a memoized function: " + memoized);
+	}
+
+	public static final class Builder {
+		private int maximumSize = 1024;
+		private Eviction eviction = Eviction.W_TINY_LFU;
+		private long expireAfterWriteNanos;
+
+		private Builder() {
+		}
+
+		public Builder maximumSize(int maximumSize) {
+			if(maximumSize < 1) {
+				throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+			}
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		public Builder eviction(Eviction eviction) {
+			this.eviction = Objects.requireNonNull(eviction);
+			return this;
+		}
+
+		public Builder expireAfterWrite(Duration ttl) {
+			if(ttl.isNegative() || ttl.isZero()) {
+				throw new IllegalArgumentException("ttl must be positive: " + ttl);
+			}
+			this.expireAfterWriteNanos = ttl.toNanos();
+			return this;
+		}
+
+		public <K, V> MemoizedFunction<K, V> function(Function<? super K, ? extends V> function) {
+			return new MemoizedFunction<>(function, newCache(false));
+		}
+
+		public <R> MemoizedIntFunction<R> intFunction(IntFunction<? extends R> function) {
+			return new MemoizedIntFunction<>(function, newCache(true));
+		}
+
+		public <T> MemoizedToDoubleFunction<T> toDoubleFunction(ToDoubleFunction<? super T> function) {
+			return new MemoizedToDoubleFunction<>(function, newCache(false));
+		}
+
+		/**
+		 * Memoizes the single abstract method of the interface type, e.g.
+		 *	IntBinaryOperator multiply = builder.memoize(IntBinaryOperator.class, TestFunctInterface4::multiply);
+		 * Calls are keyed by the list of arguments, which are boxed; default methods
+		 * and Object methods go straight to target. The result also implements Memoized.
+		 */
+		public <F> F memoize(Class<F> type, F target) {
+			Method method = singleAbstractMethod(type);
+			Objects.requireNonNull(target);
+			MemoizedFunction<Object, Object> cached = function(key -> {
+				Object[] args = key instanceof ArgumentList ? ((ArgumentList)key).args : new Object[] {key};
+				try {
+					return method.invoke(target, args);
+				} catch(InvocationTargetException e) {
+					throw sneaky(e.getCause());
+				} catch(IllegalAccessException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			InvocationHandler handler = (proxy, m, args) -> {
+				if(m.equals(method)) {
+					Object key = args != null && args.length == 1 ? args[0]
+							: new ArgumentList(args == null ? new Object[0] : args.clone());
+					return cached.apply(key);
+				}
+				if(m.getDeclaringClass() == Memoized.class) {
+					return m.invoke(cached, args);
+				}
+				if(m.getDeclaringClass() == Object.class) {
+					switch(m.getName()) {
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					default:
+						return "memoized " + target;
+					}
+				}
+				try {
+					// the interface may be package-private, as the demo interfaces are
+					m.trySetAccessible();
+					return m.invoke(target, args);
+				} catch(InvocationTargetException e) {
+					throw e.getCause();
+				}
+			};
+			// JDK interfaces have the bootstrap loader, which cannot see Memoized
+			ClassLoader loader = type.getClassLoader() != null ? type.getClassLoader() : Memoizer.class.getClassLoader();
+			return type.cast(Proxy.newProxyInstance(loader, new Class<?>[] {type, Memoized.class}, handler));
+		}
+
+		private Cache newCache(boolean intKeys) {
+			return new Cache(maximumSize, eviction, expireAfterWriteNanos, intKeys);
+		}
+	}
+
+	/*********************** memoized functions ***********************/
+
+	/**
+	 * Cache statistics and management common to every memoized function.
+	 */
+	public interface Memoized {
+		Stats stats();
+
+		/**
+		 * Number of cached results (expired ones included until they are evicted).
+		 */
+		long size();
+
+		void invalidateAll();
+	}
+
+	public static final class MemoizedFunction<K, V> implements Function<K, V>, Memoized {
+		private final Function<? super K, ? extends V> function;
+		private final Cache cache;
+
+		MemoizedFunction(Function<? super K, ? extends V> function, Cache cache) {
+			this.function = Objects.requireNonNull(function);
+			this.cache = cache;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V apply(K key) {
+			int hash = IntHash.mix(Objects.hashCode(key));
+			Node node = cache.find(key, 0, hash);
+			if(node == null) {
+				node = cache.insert(key, 0, hash, function.apply(key), 0);
+			}
+			return (V)node.value;
+		}
+
+		@Override
+		public Stats stats() {
+			return cache.stats;
+		}
+
+		@Override
+		public long size() {
+			return cache.size();
+		}
+
+		@Override
+		public void invalidateAll() {
+			cache.clear();
+		}
+	}
+
+	public static final class MemoizedIntFunction<R> implements IntFunction<R>, Memoized {
+		private final IntFunction<? extends R> function;
+		private final Cache cache;
+
+		MemoizedIntFunction(IntFunction<? extends R> function, Cache cache) {
+			this.function = Objects.requireNonNull(function);
+			this.cache = cache;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public R apply(int key) {
+			int hash = IntHash.mix(key);
+			Node node = cache.find(null, key, hash);
+			if(node == null) {
+				node = cache.insert(null, key, hash, function.apply(key), 0);
+			}
+			return (R)node.value;
+		}
+
+		@Override
+		public Stats stats() {
+			return cache.stats;
+		}
+
+		@Override
+		public long size() {
+			return cache.size();
+		}
+
+		@Override
+		public void invalidateAll() {
+			cache.clear();
+		}
+	}
+
+	public static final class MemoizedToDoubleFunction<T> implements ToDoubleFunction<T>, Memoized {
+		private final ToDoubleFunction<? super T> function;
+		private final Cache cache;
+
+		MemoizedToDoubleFunction(ToDoubleFunction<? super T> function, Cache cache) {
+			this.function = Objects.requireNonNull(function);
+			this.cache = cache;
+		}
+
+		@Override
+		public double applyAsDouble(T key) {
+			int hash = IntHash.mix(Objects.hashCode(key));
+			Node node = cache.find(key, 0, hash);
+			if(node == null) {
+				node = cache.insert(key, 0, hash, null, function.applyAsDouble(key));
+			}
+			return node.doubleValue;
+		}
+
+		@Override
+		public Stats stats() {
+			return cache.stats;
+		}
+
+		@Override
+		public long size() {
+			return cache.size();
+		}
+
+		@Override
+		public void invalidateAll() {
+			cache.clear();
+		}
+	}
+
+	public static final class Stats {
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder evictions = new LongAdder();
+		private final LongAdder expirations = new LongAdder();
+
+		public long getHits() {
+			return hits.sum();
+		}
+
+		public long getMisses() {
+			return misses.sum();
+		}
+
+		/**
+		 * Entries removed to stay within maximumSize.
+		 */
+		public long getEvictions() {
+			return evictions.sum();
+		}
+
+		/**
+		 * Entries found expired on lookup.
+		 */
+		public long getExpirations() {
+			return expirations.sum();
+		}
+
+		public double getHitRate() {
+			long h = getHits();
+			long requests = h + getMisses();
+			return requests == 0 ? 0.0 : (double)h / requests;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Stats{hits=%d, misses=%d, evictions=%d, expirations=%d, hitRate=%.3f}",
+					getHits(), getMisses(), getEvictions(), getExpirations(), getHitRate());
+		}
+	}
+
+	/*********************** cache ***********************/
+
+	static final class Cache {
+		final Stats stats = new Stats();
+		private final Segment[] segments;
+		private final int segmentShift;
+		private final long ttlNanos;
+
+		Cache(int maximumSize, Eviction eviction, long ttlNanos, boolean intKeys) {
+			// enough segments for parallel streams, but at least 16 entries per segment
+			// so the eviction policy has something to work with
+			int count = Integer.highestOneBit(Math.max(1,
+					Math.min(Runtime.getRuntime().availableProcessors() * 4, maximumSize / 16)));
+			this.segments = new Segment[count];
+			this.segmentShift = Integer.SIZE - Integer.numberOfTrailingZeros(count);
+			for(int i=0; i<count; i++) {
+				int capacity = maximumSize / count + (i < maximumSize % count ? 1 : 0);
+				segments[i] = new Segment(capacity, eviction, intKeys, stats);
+			}
+			this.ttlNanos = ttlNanos;
+		}
+
+		/**
+		 * The live node for the key, or null (counted as a miss).
+		 */
+		Node find(Object key, int intKey, int hash) {
+			Node node = segmentFor(hash).find(key, intKey, hash, ttlNanos);
+			if(node == null) {
+				stats.misses.increment();
+			} else {
+				stats.hits.increment();
+			}
+			return node;
+		}
+
+		/**
+		 * Caches the value unless another thread cached one for the key first; returns
+		 * the node that is cached.
+		 */
+		Node insert(Object key, int intKey, int hash, Object value, double doubleValue) {
+			Node node = new Node(key, intKey, hash, value, doubleValue, ttlNanos > 0 ? System.nanoTime() : 0);
+			return segmentFor(hash).insert(node, ttlNanos);
+		}
+
+		long size() {
+			long size = 0;
+			for(Segment segment : segments) {
+				size += segment.size();
+			}
+			return size;
+		}
+
+		void clear() {
+			for(Segment segment : segments) {
+				segment.clear();
+			}
+		}
+
+		private Segment segmentFor(int hash) {
+			// top bits pick the segment, low bits the slot inside it
+			return segmentShift == Integer.SIZE ? segments[0] : segments[hash >>> segmentShift];
+		}
+	}
+
+	private static final int WINDOW = 0;
+	private static final int PROBATION = 1;
+	private static final int PROTECTED = 2;
+
+	static final class Node {
+		final Object key;
+		final int intKey;
+		final int hash;
+		final Object value;
+		final double doubleValue;
+		final long writeTime;
+		int queue;
+		Node prev;
+		Node next;
+
+		Node(Object key, int intKey, int hash, Object value, double doubleValue, long writeTime) {
+			this.key = key;
+			this.intKey = intKey;
+			this.hash = hash;
+			this.value = value;
+			this.doubleValue = doubleValue;
+			this.writeTime = writeTime;
+		}
+	}
+
+	/**
+	 * Doubly linked list with a sentinel; first is the most recently used end.
+	 */
+	static final class AccessQueue {
+		private final Node sentinel = new Node(null, 0, 0, null, 0, 0);
+		int size;
+
+		AccessQueue() {
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+		}
+
+		void addFirst(Node node) {
+			node.prev = sentinel;
+			node.next = sentinel.next;
+			sentinel.next.prev = node;
+			sentinel.next = node;
+			size++;
+		}
+
+		void remove(Node node) {
+			node.prev.next = node.next;
+			node.next.prev = node.prev;
+			node.prev = null;
+			node.next = null;
+			size--;
+		}
+
+		void moveToFirst(Node node) {
+			remove(node);
+			addFirst(node);
+		}
+
+		Node last() {
+			return sentinel.prev == sentinel ? null : sentinel.prev;
+		}
+
+		void clear() {
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+			size = 0;
+		}
+	}
+
+	/**
+	 * One independently locked part of the cache. Under LRU only the window queue
+	 * is used, sized to the whole segment.
+	 */
+	static final class Segment {
+		private final boolean tinyLfu;
+		private final int capacity;
+		private final int windowCapacity;
+		private final int mainCapacity;
+		private final int protectedCapacity;
+		private final HashMap<Object, Node> objectIndex;
+		private final IntNodeMap intIndex;
+		private final AccessQueue window = new AccessQueue();
+		private final AccessQueue probation = new AccessQueue();
+		private final AccessQueue protectedQueue = new AccessQueue();
+		private final FrequencySketch sketch;
+		private final Stats stats;
+
+		Segment(int capacity, Eviction eviction, boolean intKeys, Stats stats) {
+			this.tinyLfu = eviction == Eviction.W_TINY_LFU;
+			this.capacity = capacity;
+			this.windowCapacity = tinyLfu ? Math.max(1, capacity / 100) : capacity;
+			this.mainCapacity = capacity - windowCapacity;
+			this.protectedCapacity = mainCapacity * 4 / 5;
+			this.objectIndex = intKeys ? null : new HashMap<>();
+			this.intIndex = intKeys ? new IntNodeMap(capacity) : null;
+			this.sketch = tinyLfu ? new FrequencySketch(capacity) : null;
+			this.stats = stats;
+		}
+
+		synchronized Node find(Object key, int intKey, int hash, long ttlNanos) {
+			Node node = lookup(key, intKey);
+			if(node == null) {
+				return null;
+			}
+			if(ttlNanos > 0 && System.nanoTime() - node.writeTime >= ttlNanos) {
+				unlink(node);
+				stats.expirations.increment();
+				return null;
+			}
+			if(tinyLfu) {
+				sketch.increment(hash);
+			}
+			onAccess(node);
+			return node;
+		}
+
+		synchronized Node insert(Node node, long ttlNanos) {
+			Node existing = lookup(node.key, node.intKey);
+			if(existing != null) {
+				if(ttlNanos == 0 || node.writeTime - existing.writeTime < ttlNanos) {
+					return existing;
+				}
+				unlink(existing);
+				stats.expirations.increment();
+			}
+			if(intIndex != null) {
+				intIndex.put(node.intKey, node);
+			} else {
+				objectIndex.put(node.key, node);
+			}
+			node.queue = WINDOW;
+			window.addFirst(node);
+			if(!tinyLfu) {
+				if(window.size > capacity) {
+					evict(window.last());
+				}
+				return node;
+			}
+			sketch.increment(node.hash);
+			while(window.size > windowCapacity) {
+				Node candidate = window.last();
+				window.remove(candidate);
+				admit(candidate);
+			}
+			return node;
+		}
+
+		synchronized int size() {
+			return window.size + probation.size + protectedQueue.size;
+		}
+
+		synchronized void clear() {
+			if(intIndex != null) {
+				intIndex.clear();
+			} else {
+				objectIndex.clear();
+			}
+			window.clear();
+			probation.clear();
+			protectedQueue.clear();
+		}
+
+		private Node lookup(Object key, int intKey) {
+			return intIndex != null ? intIndex.get(intKey) : objectIndex.get(key);
+		}
+
+		/**
+		 * A window entry moves to the main area's probation queue if there is room,
+		 * or if it is more frequent than the entry that would be evicted for it.
+		 */
+		private void admit(Node candidate) {
+			if(probation.size + protectedQueue.size < mainCapacity) {
+				candidate.queue = PROBATION;
+				probation.addFirst(candidate);
+				return;
+			}
+			Node victim = probation.last() != null ? probation.last() : protectedQueue.last();
+			if(victim != null && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+				evict(victim);
+				candidate.queue = PROBATION;
+				probation.addFirst(candidate);
+			} else {
+				// candidate is no longer in any queue; just drop it from the index
+				removeFromIndex(candidate);
+				stats.evictions.increment();
+			}
+		}
+
+		private void onAccess(Node node) {
+			switch(node.queue) {
+			case WINDOW:
+				window.moveToFirst(node);
+				break;
+			case PROBATION:
+				probation.remove(node);
+				node.queue = PROTECTED;
+				protectedQueue.addFirst(node);
+				if(protectedQueue.size > protectedCapacity) {
+					Node demoted = protectedQueue.last();
+					protectedQueue.remove(demoted);
+					demoted.queue = PROBATION;
+					probation.addFirst(demoted);
+				}
+				break;
+			default:
+				protectedQueue.moveToFirst(node);
+				break;
+			}
+		}
+
+		private void evict(Node node) {
+			unlink(node);
+			stats.evictions.increment();
+		}
+
+		private void unlink(Node node) {
+			switch(node.queue) {
+			case WINDOW:
+				window.remove(node);
+				break;
+			case PROBATION:
+				probation.remove(node);
+				break;
+			default:
+				protectedQueue.remove(node);
+				break;
+			}
+			removeFromIndex(node);
+		}
+
+		private void removeFromIndex(Node node) {
+			if(intIndex != null) {
+				intIndex.remove(node.intKey);
+			} else {
+				objectIndex.remove(node.key);
+			}
+		}
+	}
+
+	/**
+	 * Count-min sketch of 4-bit counters (4 rows) estimating how often a hash was
+	 * seen recently. All counters are halved every 10 * capacity increments, so
+	 * old popularity fades.
+	 */
+	static final class FrequencySketch {
+		private static final int[] SEEDS = {0x97CB3127, 0xB492B66F, 0x9AE16A3B, 0xCBF29CE5};
+		private static final int ROWS = 4;
+		private static final int MAX_COUNT = 15;
+
+		private final byte[] counters;
+		private final int widthMask;
+		private final int resetAt;
+		private int additions;
+
+		FrequencySketch(int capacity) {
+			int width = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1);
+			this.counters = new byte[ROWS * width];
+			this.widthMask = width - 1;
+			this.resetAt = Math.max(100, 10 * capacity);
+		}
+
+		void increment(int hash) {
+			boolean added = false;
+			for(int row=0; row<ROWS; row++) {
+				int i = index(hash, row);
+				if(counters[i] < MAX_COUNT) {
+					counters[i]++;
+					added = true;
+				}
+			}
+			if(added && ++additions == resetAt) {
+				for(int i=0; i<counters.length; i++) {
+					counters[i] >>>= 1;
+				}
+				additions /= 2;
+			}
+		}
+
+		int frequency(int hash) {
+			int min = MAX_COUNT;
+			for(int row=0; row<ROWS; row++) {
+				min = Math.min(min, counters[index(hash, row)]);
+			}
+			return min;
+		}
+
+		private int index(int hash, int row) {
+			int h = hash * SEEDS[row];
+			h ^= h >>> 17;
+			return row * (widthMask + 1) + (h & widthMask);
+		}
+	}
+
+	/**
+	 * Open-addressing int -> Node map with backward-shift deletion, so int keys are
+	 * never boxed.
+	 */
+	static final class IntNodeMap {
+		private final int[] keys;
+		private final Node[] nodes;
+		private final int mask;
+
+		IntNodeMap(int capacity) {
+			// the segment holds at most capacity + 1 entries at a time
+			int size = Integer.highestOneBit(Math.max(4, (capacity + 1) * 2) * 2 - 1);
+			this.keys = new int[size];
+			this.nodes = new Node[size];
+			this.mask = size - 1;
+		}
+
+		Node get(int key) {
+			for(int slot=slot(key); nodes[slot] != null; slot=(slot + 1) & mask) {
+				if(keys[slot] == key) {
+					return nodes[slot];
+				}
+			}
+			return null;
+		}
+
+		void put(int key, Node node) {
+			int slot = slot(key);
+			while(nodes[slot] != null && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			nodes[slot] = node;
+		}
+
+		void remove(int key) {
+			int slot = slot(key);
+			while(nodes[slot] != null && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			if(nodes[slot] == null) {
+				return;
+			}
+			// shift later entries of the probe run back into the gap
+			int gap = slot;
+			for(int i=(gap + 1) & mask; nodes[i] != null; i=(i + 1) & mask) {
+				int home = slot(keys[i]);
+				if(((i - home) & mask) >= ((i - gap) & mask)) {
+					keys[gap] = keys[i];
+					nodes[gap] = nodes[i];
+					gap = i;
+				}
+			}
+			nodes[gap] = null;
+		}
+
+		void clear() {
+			Arrays.fill(nodes, null);
+		}
+
+		private int slot(int key) {
+			return IntHash.mix(key) & mask;
+		}
+	}
+
+	/**
+	 * Arguments of a multi-argument call, compared element-wise.
+	 */
+	static final class ArgumentList {
+		final Object[] args;
+
+		ArgumentList(Object[] args) {
+			this.args = args;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof ArgumentList && Arrays.deepEquals(args, ((ArgumentList)o).args);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.deepHashCode(args);
+		}
+	}
+
+	private static Method singleAbstractMethod(Class<?> type) {
+		if(!type.isInterface()) {
+			throw new IllegalArgumentException(type + " is not an interface");
+		}
+		Method found = null;
+		for(Method m : type.getMethods()) {
+			if(Modifier.isAbstract(m.getModifiers()) && !isObjectMethod(m)) {
+				if(found != null) {
+					throw new IllegalArgumentException(type + " has more than one abstract method");
+				}
+				found = m;
+			}
+		}
+		if(found == null) {
+			throw new IllegalArgumentException(type + " has no abstract method");
+		}
+		found.setAccessible(true);
+		return found;
+	}
+
+	private static boolean isObjectMethod(Method m) {
+		try {
+			Object.class.getMethod(m.getName(), m.getParameterTypes());
+			return true;
+		} catch(NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E extends Throwable> RuntimeException sneaky(Throwable t) throws E {
+		throw (E)t;
+	}
+}
@@ -0,0 +1,647 @@
+package com.common;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Primitive operators (int/long/double, unary and binary) that can also be
+ * applied to whole arrays: op.apply(a, b, out) computes out[i] = op(a[i], b[i]).
+ *
+ * Any lambda or method reference can be used as an operator, e.g.
+ *	IntBinaryOp add = (a, b) -> a+b;
+ * and its bulk apply calls the lambda once per element. The well-known operators
+ * are the constants of the IntBinary, LongBinary, DoubleBinary, ... enums; their
+ * bulk apply is a plain counted loop over the arrays with the operation inlined,
+ * which the JIT compiles to SIMD instructions (SuperWord), so
+ *	PrimitiveOps.IntBinary.ADD.apply(a, b, out)
+ * runs at vector width. intBinary(...), intUnary(...) and the long and double
+ * variants adapt any operator; they return the constants as they are, but cannot
+ * tell that a lambda or a method reference such as Integer::sum computes the same
+ * thing, so use the constants to get the kernels.
+ *
+ * out may be the same array as a or b. All arrays must have the same length.
+ */
+public final class PrimitiveOps {
+
+	private PrimitiveOps() {
+	}
+
+	/*********************** operator interfaces ***********************/
+
+	@FunctionalInterface
+	public interface IntBinaryOp extends IntBinaryOperator {
+		default void apply(int[] a, int[] b, int[] out) {
+			int n = checkLengths(a.length, b.length, out.length);
+			for(int i=0; i<n; i++) {
+				out[i] = applyAsInt(a[i], b[i]);
+			}
+		}
+
+		/**
+		 * out[i] = op(a[i], b), e.g. multiply every element by a constant.
+		 */
+		default void apply(int[] a, int b, int[] out) {
+			int n = checkLengths(a.length, out.length, out.length);
+			for(int i=0; i<n; i++) {
+				out[i] = applyAsInt(a[i], b);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface IntUnaryOp extends IntUnaryOperator {
+		default void apply(int[] a, int[] out) {
+			int n = checkLengths(a.length, out.length, out.length);
+			for(int i=0; i<n; i++) {
+				out[i] = applyAsInt(a[i]);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface LongBinaryOp extends LongBinaryOperator {
+		default void apply(long[] a, long[] b, long[] out) {
+			int n = checkLengths(a.length, b.length, out.length);
+			for(int i=0; i<n; i++) {
+				out[i] = applyAsLong(a[i], b[i]);
+			}
+		}
+
+		default void apply(long[] a, long b, long[] out) {
+			int n = checkLengths(a.length, out.length, out.length);
+			for(int i=0; i<n; i++) {
+				out[i] = applyAsLong(a[i], b);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface LongUnaryOp extends LongUnaryOperator {
+		default void apply(long[] a, long[] out) {
+			int n = checkLengths(a.length, out.length, out.length);
+			for(int i=0; i<n; i++) {
+				out[i] = applyAsLong(a[i]);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface DoubleBinaryOp extends DoubleBinaryOperator {
+		default void apply(double[] a, double[] b, double[] out) {
+			int n = checkLengths(a.length, b.length, out.length);
+			for(int i=0; i<n; i++) {
+				out[i] = applyAsDouble(a[i], b[i]);
+			}
+		}
+
+		default void apply(double[] a, double b, double[] out) {
+			int n = checkLengths(a.length, out.length, out.length);
+			for(int i=0; i<n; i++) {
+				out[i] = applyAsDouble(a[i], b);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface DoubleUnaryOp extends DoubleUnaryOperator {
+		default void apply(double[] a, double[] out) {
+			int n = checkLengths(a.length, out.length, out.length);
+			for(int i=0; i<n; i++) {
+				out[i] = applyAsDouble(a[i]);
+			}
+		}
+	}
+
+	/*********************** adapters ***********************/
+
+	/**
+	 * op as an IntBinaryOp: op itself if it already is one (including the IntBinary
+	 * constants, which keep their vectorized kernels), otherwise a per-element adapter.
+	 * Each kind has its own name, so an implicitly typed lambda is not ambiguous.
+	 */
+	public static IntBinaryOp intBinary(IntBinaryOperator op) {
+		return op instanceof IntBinaryOp ? (IntBinaryOp)op : op::applyAsInt;
+	}
+
+	public static IntUnaryOp intUnary(IntUnaryOperator op) {
+		return op instanceof IntUnaryOp ? (IntUnaryOp)op : op::applyAsInt;
+	}
+
+	public static LongBinaryOp longBinary(LongBinaryOperator op) {
+		return op instanceof LongBinaryOp ? (LongBinaryOp)op : op::applyAsLong;
+	}
+
+	public static LongUnaryOp longUnary(LongUnaryOperator op) {
+		return op instanceof LongUnaryOp ? (LongUnaryOp)op : op::applyAsLong;
+	}
+
+	public static DoubleBinaryOp doubleBinary(DoubleBinaryOperator op) {
+		return op instanceof DoubleBinaryOp ? (DoubleBinaryOp)op : op::applyAsDouble;
+	}
+
+	public static DoubleUnaryOp doubleUnary(DoubleUnaryOperator op) {
+		return op instanceof DoubleUnaryOp ? (DoubleUnaryOp)op : op::applyAsDouble;
+	}
+
+	/**
+	 * Whether op is one of the constants below, which have a vectorized kernel.
+	 * Lambdas and method references are not, whatever they compute.
+	 */
+	public static boolean isIntrinsic(Object op) {
+		return op instanceof IntBinary || op instanceof IntUnary
+				|| op instanceof LongBinary || op instanceof LongUnary
+				|| op instanceof DoubleBinary || op instanceof DoubleUnary;
+	}
+
+	/*********************** known operators ***********************/
+
+	/*
+	 * Every kernel below is deliberately the simplest possible loop: int index from 0
+	 * to n, one array store per iteration and no calls (Math.min/max/abs/sqrt are
+	 * intrinsics), which is the shape C2 unrolls and packs into vector instructions.
+	 * int, long and double have the same operators, each with both bulk kernels;
+	 * only double has DIVIDE and SQRT, as integer division has no vector form.
+	 */
+
+	public enum IntBinary implements IntBinaryOp {
+		ADD {
+			@Override
+			public int applyAsInt(int a, int b) {
+				return a + b;
+			}
+
+			@Override
+			public void apply(int[] a, int[] b, int[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] + b[i];
+				}
+			}
+
+			@Override
+			public void apply(int[] a, int b, int[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] + b;
+				}
+			}
+		},
+		SUBTRACT {
+			@Override
+			public int applyAsInt(int a, int b) {
+				return a - b;
+			}
+
+			@Override
+			public void apply(int[] a, int[] b, int[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] - b[i];
+				}
+			}
+
+			@Override
+			public void apply(int[] a, int b, int[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] - b;
+				}
+			}
+		},
+		MULTIPLY {
+			@Override
+			public int applyAsInt(int a, int b) {
+				return a * b;
+			}
+
+			@Override
+			public void apply(int[] a, int[] b, int[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] * b[i];
+				}
+			}
+
+			@Override
+			public void apply(int[] a, int b, int[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] * b;
+				}
+			}
+		},
+		MIN {
+			@Override
+			public int applyAsInt(int a, int b) {
+				return Math.min(a, b);
+			}
+
+			@Override
+			public void apply(int[] a, int[] b, int[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.min(a[i], b[i]);
+				}
+			}
+
+			@Override
+			public void apply(int[] a, int b, int[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.min(a[i], b);
+				}
+			}
+		},
+		MAX {
+			@Override
+			public int applyAsInt(int a, int b) {
+				return Math.max(a, b);
+			}
+
+			@Override
+			public void apply(int[] a, int[] b, int[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.max(a[i], b[i]);
+				}
+			}
+
+			@Override
+			public void apply(int[] a, int b, int[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.max(a[i], b);
+				}
+			}
+		}
+	}
+
+	public enum IntUnary implements IntUnaryOp {
+		NEGATE {
+			@Override
+			public int applyAsInt(int a) {
+				return -a;
+			}
+
+			@Override
+			public void apply(int[] a, int[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = -a[i];
+				}
+			}
+		},
+		ABS {
+			@Override
+			public int applyAsInt(int a) {
+				return Math.abs(a);
+			}
+
+			@Override
+			public void apply(int[] a, int[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.abs(a[i]);
+				}
+			}
+		}
+	}
+
+	public enum LongBinary implements LongBinaryOp {
+		ADD {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return a + b;
+			}
+
+			@Override
+			public void apply(long[] a, long[] b, long[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] + b[i];
+				}
+			}
+
+			@Override
+			public void apply(long[] a, long b, long[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] + b;
+				}
+			}
+		},
+		SUBTRACT {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return a - b;
+			}
+
+			@Override
+			public void apply(long[] a, long[] b, long[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] - b[i];
+				}
+			}
+
+			@Override
+			public void apply(long[] a, long b, long[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] - b;
+				}
+			}
+		},
+		MULTIPLY {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return a * b;
+			}
+
+			@Override
+			public void apply(long[] a, long[] b, long[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] * b[i];
+				}
+			}
+
+			@Override
+			public void apply(long[] a, long b, long[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] * b;
+				}
+			}
+		},
+		MIN {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return Math.min(a, b);
+			}
+
+			@Override
+			public void apply(long[] a, long[] b, long[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.min(a[i], b[i]);
+				}
+			}
+
+			@Override
+			public void apply(long[] a, long b, long[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.min(a[i], b);
+				}
+			}
+		},
+		MAX {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return Math.max(a, b);
+			}
+
+			@Override
+			public void apply(long[] a, long[] b, long[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.max(a[i], b[i]);
+				}
+			}
+
+			@Override
+			public void apply(long[] a, long b, long[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.max(a[i], b);
+				}
+			}
+		}
+	}
+
+	public enum LongUnary implements LongUnaryOp {
+		NEGATE {
+			@Override
+			public long applyAsLong(long a) {
+				return -a;
+			}
+
+			@Override
+			public void apply(long[] a, long[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = -a[i];
+				}
+			}
+		},
+		ABS {
+			@Override
+			public long applyAsLong(long a) {
+				return Math.abs(a);
+			}
+
+			@Override
+			public void apply(long[] a, long[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.abs(a[i]);
+				}
+			}
+		}
+	}
+
+	public enum DoubleBinary implements DoubleBinaryOp {
+		ADD {
+			@Override
+			public double applyAsDouble(double a, double b) {
+				return a + b;
+			}
+
+			@Override
+			public void apply(double[] a, double[] b, double[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] + b[i];
+				}
+			}
+
+			@Override
+			public void apply(double[] a, double b, double[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] + b;
+				}
+			}
+		},
+		SUBTRACT {
+			@Override
+			public double applyAsDouble(double a, double b) {
+				return a - b;
+			}
+
+			@Override
+			public void apply(double[] a, double[] b, double[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] - b[i];
+				}
+			}
+
+			@Override
+			public void apply(double[] a, double b, double[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] - b;
+				}
+			}
+		},
+		MULTIPLY {
+			@Override
+			public double applyAsDouble(double a, double b) {
+				return a * b;
+			}
+
+			@Override
+			public void apply(double[] a, double[] b, double[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] * b[i];
+				}
+			}
+
+			@Override
+			public void apply(double[] a, double b, double[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] * b;
+				}
+			}
+		},
+		MIN {
+			@Override
+			public double applyAsDouble(double a, double b) {
+				return Math.min(a, b);
+			}
+
+			@Override
+			public void apply(double[] a, double[] b, double[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.min(a[i], b[i]);
+				}
+			}
+
+			@Override
+			public void apply(double[] a, double b, double[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.min(a[i], b);
+				}
+			}
+		},
+		MAX {
+			@Override
+			public double applyAsDouble(double a, double b) {
+				return Math.max(a, b);
+			}
+
+			@Override
+			public void apply(double[] a, double[] b, double[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.max(a[i], b[i]);
+				}
+			}
+
+			@Override
+			public void apply(double[] a, double b, double[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.max(a[i], b);
+				}
+			}
+		},
+		DIVIDE {
+			@Override
+			public double applyAsDouble(double a, double b) {
+				return a / b;
+			}
+
+			@Override
+			public void apply(double[] a, double[] b, double[] out) {
+				int n = checkLengths(a.length, b.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] / b[i];
+				}
+			}
+
+			@Override
+			public void apply(double[] a, double b, double[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = a[i] / b;
+				}
+			}
+		}
+	}
+
+	public enum DoubleUnary implements DoubleUnaryOp {
+		NEGATE {
+			@Override
+			public double applyAsDouble(double a) {
+				return -a;
+			}
+
+			@Override
+			public void apply(double[] a, double[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = -a[i];
+				}
+			}
+		},
+		ABS {
+			@Override
+			public double applyAsDouble(double a) {
+				return Math.abs(a);
+			}
+
+			@Override
+			public void apply(double[] a, double[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.abs(a[i]);
+				}
+			}
+		},
+		SQRT {
+			@Override
+			public double applyAsDouble(double a) {
+				return Math.sqrt(a);
+			}
+
+			@Override
+			public void apply(double[] a, double[] out) {
+				int n = checkLengths(a.length, out.length, out.length);
+				for(int i=0; i<n; i++) {
+					out[i] = Math.sqrt(a[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the common length, failing before anything is written to out.
+	 */
+	static int checkLengths(int a, int b, int out) {
+		if(a != b || a != out) {
+			throw new IllegalArgumentException("array lengths differ: " + a + ", " + b + ", " + out);
+		}
+		return a;
+	}
+}
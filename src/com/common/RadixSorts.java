@@ -0,0 +1,233 @@
+package com.common;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Stable sorts of object arrays by a primitive key, as an alternative to
+ * Arrays.sort(array, comparator).
+ *
+ * The key is extracted once per element into a long[] (mapped so that unsigned
+ * order matches the key's natural order), an LSD radix sort orders (key, index)
+ * pairs one byte at a time, and the array is then permuted to match. There is no
+ * comparator call at all; byte positions that are equal across all keys (e.g. the
+ * upper bytes of small ids, or the exponent of salaries in one range) are skipped.
+ * The parallel variants split every pass into per-thread chunks.
+ *
+ * Doubles are ordered like Double.compare: -0.0 before 0.0, NaN last.
+ */
+public final class RadixSorts {
+
+	private static final int RADIX_BITS = 8;
+	private static final int BUCKETS = 1 << RADIX_BITS;
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	private RadixSorts() {
+	}
+
+	/*********************** Employee ***********************/
+
+	public static void sortBySalary(Employee[] employees) {
+		sortByDouble(employees, Employee::getSalary);
+	}
+
+	public static void parallelSortBySalary(Employee[] employees) {
+		parallelSortByDouble(employees, Employee::getSalary);
+	}
+
+	public static void sortByEmpId(Employee[] employees) {
+		sortByInt(employees, Employee::getEmpId);
+	}
+
+	public static void parallelSortByEmpId(Employee[] employees) {
+		parallelSortByInt(employees, Employee::getEmpId);
+	}
+
+	/*********************** generic ***********************/
+
+	public static <T> void sortByInt(T[] a, ToIntFunction<? super T> key) {
+		sort(a, intKeys(a, key), false);
+	}
+
+	public static <T> void parallelSortByInt(T[] a, ToIntFunction<? super T> key) {
+		sort(a, intKeys(a, key), true);
+	}
+
+	public static <T> void sortByLong(T[] a, ToLongFunction<? super T> key) {
+		sort(a, longKeys(a, key), false);
+	}
+
+	public static <T> void parallelSortByLong(T[] a, ToLongFunction<? super T> key) {
+		sort(a, longKeys(a, key), true);
+	}
+
+	public static <T> void sortByDouble(T[] a, ToDoubleFunction<? super T> key) {
+		sort(a, doubleKeys(a, key), false);
+	}
+
+	public static <T> void parallelSortByDouble(T[] a, ToDoubleFunction<? super T> key) {
+		sort(a, doubleKeys(a, key), true);
+	}
+
+	/**
+	 * Stable sort of a by keys that are already in unsigned-long order
+	 * (see sortableDouble/sortableLong). keys is used as scratch space.
+	 */
+	public static <T> void sortByUnsignedKeys(T[] a, long[] keys, boolean parallel) {
+		if(keys.length != a.length) {
+			throw new IllegalArgumentException("keys.length " + keys.length + " != a.length " + a.length);
+		}
+		sort(a, keys, parallel);
+	}
+
+	/**
+	 * Maps a double to a long whose unsigned order is Double.compare order.
+	 */
+	public static long sortableDouble(double value) {
+		long bits = Double.doubleToLongBits(value);
+		return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+	}
+
+	/**
+	 * Maps a signed long to a long whose unsigned order is the signed order.
+	 */
+	public static long sortableLong(long value) {
+		return value ^ Long.MIN_VALUE;
+	}
+
+	/**
+	 * Radix-sorts keys (unsigned order) and returns, for every position of the sorted
+	 * sequence, the original index of the element that belongs there. keys is used
+	 * as scratch space and is left in an unspecified order.
+	 */
+	public static int[] sortedOrder(long[] keys, boolean parallel) {
+		int n = keys.length;
+		int[] order = new int[n];
+		for(int i=0; i<n; i++) {
+			order[i] = i;
+		}
+		if(n < 2) {
+			return order;
+		}
+		long varying = 0;
+		long first = keys[0];
+		for(int i=1; i<n; i++) {
+			varying |= keys[i] ^ first;
+		}
+		int chunks = parallel && n >= PARALLEL_THRESHOLD
+				? Math.min(Runtime.getRuntime().availableProcessors() * 2, n / (PARALLEL_THRESHOLD / 4))
+				: 1;
+		long[] keyBuf = new long[n];
+		int[] orderBuf = new int[n];
+		for(int shift=0; shift<Long.SIZE; shift+=RADIX_BITS) {
+			if(((varying >>> shift) & (BUCKETS - 1)) == 0) {
+				continue;
+			}
+			if(chunks == 1) {
+				pass(keys, order, keyBuf, orderBuf, shift);
+			} else {
+				parallelPass(keys, order, keyBuf, orderBuf, shift, chunks);
+			}
+			long[] k = keys; keys = keyBuf; keyBuf = k;
+			int[] o = order; order = orderBuf; orderBuf = o;
+		}
+		return order;
+	}
+
+	private static <T> void sort(T[] a, long[] keys, boolean parallel) {
+		int[] order = sortedOrder(keys, parallel);
+		Object[] copy = a.clone();
+		if(parallel && a.length >= PARALLEL_THRESHOLD) {
+			IntStream.range(0, a.length).parallel().forEach(i -> a[i] = cast(copy[order[i]]));
+		} else {
+			for(int i=0; i<a.length; i++) {
+				a[i] = cast(copy[order[i]]);
+			}
+		}
+	}
+
+	private static void pass(long[] keys, int[] order, long[] keyOut, int[] orderOut, int shift) {
+		int[] offsets = new int[BUCKETS];
+		for(long key : keys) {
+			offsets[(int)(key >>> shift) & (BUCKETS - 1)]++;
+		}
+		int running = 0;
+		for(int b=0; b<BUCKETS; b++) {
+			int count = offsets[b];
+			offsets[b] = running;
+			running += count;
+		}
+		for(int i=0; i<keys.length; i++) {
+			int dest = offsets[(int)(keys[i] >>> shift) & (BUCKETS - 1)]++;
+			keyOut[dest] = keys[i];
+			orderOut[dest] = order[i];
+		}
+	}
+
+	/**
+	 * One radix pass split into contiguous chunks. Bucket b of chunk c is written
+	 * after bucket b of chunks 0..c-1, which keeps the pass stable.
+	 */
+	private static void parallelPass(long[] keys, int[] order, long[] keyOut, int[] orderOut, int shift, int chunks) {
+		int n = keys.length;
+		int[][] counts = new int[chunks][BUCKETS];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int[] count = counts[c];
+			for(int i=start(c, chunks, n), end=start(c + 1, chunks, n); i<end; i++) {
+				count[(int)(keys[i] >>> shift) & (BUCKETS - 1)]++;
+			}
+		});
+		int running = 0;
+		for(int b=0; b<BUCKETS; b++) {
+			for(int c=0; c<chunks; c++) {
+				int count = counts[c][b];
+				counts[c][b] = running;
+				running += count;
+			}
+		}
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int[] offsets = counts[c];
+			for(int i=start(c, chunks, n), end=start(c + 1, chunks, n); i<end; i++) {
+				int dest = offsets[(int)(keys[i] >>> shift) & (BUCKETS - 1)]++;
+				keyOut[dest] = keys[i];
+				orderOut[dest] = order[i];
+			}
+		});
+	}
+
+	private static int start(int chunk, int chunks, int n) {
+		return (int)((long)n * chunk / chunks);
+	}
+
+	private static <T> long[] intKeys(T[] a, ToIntFunction<? super T> key) {
+		long[] keys = new long[a.length];
+		for(int i=0; i<a.length; i++) {
+			// flip the sign bit and zero-extend: only the low 4 bytes can vary
+			keys[i] = (key.applyAsInt(a[i]) ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+		}
+		return keys;
+	}
+
+	private static <T> long[] longKeys(T[] a, ToLongFunction<? super T> key) {
+		long[] keys = new long[a.length];
+		for(int i=0; i<a.length; i++) {
+			keys[i] = sortableLong(key.applyAsLong(a[i]));
+		}
+		return keys;
+	}
+
+	private static <T> long[] doubleKeys(T[] a, ToDoubleFunction<? super T> key) {
+		long[] keys = new long[a.length];
+		for(int i=0; i<a.length; i++) {
+			keys[i] = sortableDouble(key.applyAsDouble(a[i]));
+		}
+		return keys;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T cast(Object o) {
+		return (T)o;
+	}
+}
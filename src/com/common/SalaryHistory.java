@@ -0,0 +1,487 @@
+package com.common;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * Salary history of every employee, as compressed time series keyed by the date a
+ * salary became effective. Employee.salaryIncrement overwrites the salary; record
+ * it here (or call salaryIncrement(emp, percent, date), which does both) to keep
+ * the history.
+ *
+ * Each Series is stored the way Gorilla (Facebook's in-memory TSDB) stores
+ * timestamps and values, in blocks of up to 128 points:
+ *  - dates as epoch days, delta-of-delta encoded: a regular schedule (e.g. a raise
+ *    every year on the same day) costs about one bit per point;
+ *  - salaries as the XOR of their bits with the previous salary, with leading and
+ *    trailing zero runs elided: an unchanged salary costs one bit.
+ * Irregular dates and percentage raises still need 10-15 bytes per point including
+ * the per-series overhead, against roughly 80 for a TreeMap<LocalDate, Double>
+ * entry with its boxed key and value.
+ *
+ * Queries decode at most the blocks they need: the block index holds the first
+ * date of every block. Salaries are annual amounts; payroll(from, to) prorates
+ * them at salary / 365 per day. All methods of SalaryHistory are synchronized.
+ */
+public class SalaryHistory {
+
+	public static final int DAYS_PER_YEAR = 365;
+
+	private final Map<Integer, Series> series = new HashMap<>();
+
+	/**
+	 * Records that empId earns salary from effective on. Dates of one employee
+	 * must be recorded in order; a second record on the same date supersedes the first.
+	 */
+	public synchronized void record(int empId, LocalDate effective, double salary) {
+		series.computeIfAbsent(empId, id -> new Series()).append(effective, salary);
+	}
+
+	/**
+	 * Records the current salary of emp as effective from the given date.
+	 */
+	public void record(Employee emp, LocalDate effective) {
+		record(emp.getEmpId(), effective, emp.getSalary());
+	}
+
+	/**
+	 * Raises emp's salary and records the new salary as effective from the given date.
+	 */
+	public synchronized void salaryIncrement(Employee emp, double percent, LocalDate effective) {
+		emp.salaryIncrement(percent);
+		record(emp, effective);
+	}
+
+	/**
+	 * The series of empId, or null if nothing was recorded for it.
+	 */
+	public synchronized Series series(int empId) {
+		return series.get(empId);
+	}
+
+	public synchronized OptionalDouble salaryAsOf(int empId, LocalDate date) {
+		Series s = series.get(empId);
+		return s == null ? OptionalDouble.empty() : s.salaryAsOf(date);
+	}
+
+	/**
+	 * What empId was paid for the days from (inclusive) to to (exclusive).
+	 */
+	public synchronized double payroll(int empId, LocalDate from, LocalDate to) {
+		Series s = series.get(empId);
+		return s == null ? 0.0 : s.payroll(from, to);
+	}
+
+	/**
+	 * What all employees together were paid for the days from (inclusive) to to (exclusive).
+	 */
+	public synchronized double payroll(LocalDate from, LocalDate to) {
+		double total = 0;
+		for(Series s : series.values()) {
+			total += s.payroll(from, to);
+		}
+		return total;
+	}
+
+	/**
+	 * Number of employees with a history.
+	 */
+	public synchronized int size() {
+		return series.size();
+	}
+
+	public synchronized long pointCount() {
+		long points = 0;
+		for(Series s : series.values()) {
+			points += s.size();
+		}
+		return points;
+	}
+
+	/**
+	 * Bytes held by the compressed series (not counting the per-employee map entries).
+	 */
+	public synchronized long estimatedBytes() {
+		long bytes = 0;
+		for(Series s : series.values()) {
+			bytes += s.estimatedBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Receives the points of a series in date order.
+	 */
+	@FunctionalInterface
+	public interface PointConsumer {
+		void accept(long epochDay, double salary);
+	}
+
+	/**
+	 * Compressed (effective date, salary) points of one employee. Not thread-safe.
+	 */
+	public static final class Series {
+		static final int BLOCK_SIZE = 128;
+
+		private Block[] blocks = new Block[1];
+		private long[] blockStarts = new long[1];
+		private int blockCount;
+		private int size;
+
+		public void append(LocalDate effective, double salary) {
+			append(effective.toEpochDay(), salary);
+		}
+
+		public void append(long epochDay, double salary) {
+			Block last = blockCount == 0 ? null : blocks[blockCount - 1];
+			if(last != null && epochDay < last.lastDay) {
+				throw new IllegalArgumentException("effective date " + LocalDate.ofEpochDay(epochDay)
+						+ " is before the last recorded date " + LocalDate.ofEpochDay(last.lastDay));
+			}
+			if(last == null || last.count == BLOCK_SIZE) {
+				if(last != null) {
+					last.bits.trim();
+				}
+				if(blockCount == blocks.length) {
+					blocks = Arrays.copyOf(blocks, blockCount * 2);
+					blockStarts = Arrays.copyOf(blockStarts, blockCount * 2);
+				}
+				last = new Block(epochDay);
+				blocks[blockCount] = last;
+				blockStarts[blockCount] = epochDay;
+				blockCount++;
+			}
+			last.append(epochDay, salary);
+			size++;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		/**
+		 * The salary in effect on date: that of the last point on or before it.
+		 */
+		public OptionalDouble salaryAsOf(LocalDate date) {
+			long day = date.toEpochDay();
+			int b = blockOf(day);
+			if(b < 0) {
+				return OptionalDouble.empty();
+			}
+			Decoder decoder = new Decoder(blocks[b]);
+			double salary = Double.NaN;
+			while(decoder.next() && decoder.day <= day) {
+				salary = decoder.value;
+			}
+			return OptionalDouble.of(salary);
+		}
+
+		/**
+		 * Sum over the days in [from, to) of the salary in effect that day; days
+		 * before the first point count as zero. The last salary stays in effect.
+		 */
+		public double salaryDays(LocalDate from, LocalDate to) {
+			long start = from.toEpochDay();
+			long end = to.toEpochDay();
+			if(end <= start || size == 0) {
+				return 0.0;
+			}
+			// the block holding the salary in effect at start, or the first block
+			int b = Math.max(blockOf(start), 0);
+			double total = 0;
+			long day = Long.MIN_VALUE;
+			double salary = 0;
+			for(; b<blockCount; b++) {
+				Decoder decoder = new Decoder(blocks[b]);
+				while(decoder.next()) {
+					if(decoder.day >= end) {
+						return total + salary * span(day, decoder.day, start, end);
+					}
+					total += salary * span(day, decoder.day, start, end);
+					day = decoder.day;
+					salary = decoder.value;
+				}
+			}
+			return total + salary * span(day, end, start, end);
+		}
+
+		/**
+		 * Pay for the days in [from, to) at salary / DAYS_PER_YEAR per day.
+		 */
+		public double payroll(LocalDate from, LocalDate to) {
+			return salaryDays(from, to) / DAYS_PER_YEAR;
+		}
+
+		public void forEach(PointConsumer action) {
+			for(int b=0; b<blockCount; b++) {
+				Decoder decoder = new Decoder(blocks[b]);
+				while(decoder.next()) {
+					action.accept(decoder.day, decoder.value);
+				}
+			}
+		}
+
+		public long estimatedBytes() {
+			// array headers and the per-block fields included
+			long bytes = 16 + 16 + (long)blocks.length * 4 + 16 + (long)blockStarts.length * 8;
+			for(int b=0; b<blockCount; b++) {
+				bytes += 64 + 16 + (long)blocks[b].bits.words.length * 8;
+			}
+			return bytes;
+		}
+
+		/**
+		 * Index of the last block starting on or before day, or -1.
+		 */
+		private int blockOf(long day) {
+			int i = Arrays.binarySearch(blockStarts, 0, blockCount, day);
+			if(i < 0) {
+				return -i - 2;
+			}
+			// equal start dates can repeat across blocks: take the last one
+			while(i + 1 < blockCount && blockStarts[i + 1] == day) {
+				i++;
+			}
+			return i;
+		}
+
+		/**
+		 * Length of [a, b) clipped to [start, end).
+		 */
+		private static long span(long a, long b, long start, long end) {
+			return Math.max(0, Math.min(b, end) - Math.max(a, start));
+		}
+	}
+
+	/*********************** encoding ***********************/
+
+	/**
+	 * One compressed block. The first point is stored in full (the date in the block
+	 * index, the salary as 64 raw bits); every later point as a delta-of-delta date
+	 * and an XOR-compressed salary.
+	 */
+	static final class Block {
+		final BitBuffer bits = new BitBuffer();
+		final long firstDay;
+		int count;
+		long lastDay;
+		long lastDelta;
+		long lastValue;
+		int lastLeading = Integer.MAX_VALUE;
+		int lastTrailing;
+
+		Block(long firstDay) {
+			this.firstDay = firstDay;
+		}
+
+		void append(long day, double salary) {
+			long value = Double.doubleToRawLongBits(salary);
+			if(count == 0) {
+				bits.write(value, 64);
+				lastDay = day;
+				lastValue = value;
+				count = 1;
+				return;
+			}
+			long delta = day - lastDay;
+			writeDeltaOfDelta(delta - lastDelta);
+			writeXor(value ^ lastValue);
+			lastDay = day;
+			lastDelta = delta;
+			lastValue = value;
+			count++;
+		}
+
+		/**
+		 * 0 -> '0'; otherwise a prefix selecting 7, 9, 12 or 64 bits of two's complement.
+		 */
+		private void writeDeltaOfDelta(long dod) {
+			if(dod == 0) {
+				bits.write(0, 1);
+			} else if(dod >= -64 && dod < 64) {
+				bits.write(0b10, 2);
+				bits.write(dod, 7);
+			} else if(dod >= -256 && dod < 256) {
+				bits.write(0b110, 3);
+				bits.write(dod, 9);
+			} else if(dod >= -2048 && dod < 2048) {
+				bits.write(0b1110, 4);
+				bits.write(dod, 12);
+			} else {
+				// epoch days span more than 32 bits
+				bits.write(0b1111, 4);
+				bits.write(dod, 64);
+			}
+		}
+
+		/**
+		 * 0 -> '0'; '10' + the meaningful bits if they fit the previous window;
+		 * otherwise '11' + 5 bits of leading zeros + 6 bits of length + the bits.
+		 */
+		private void writeXor(long xor) {
+			if(xor == 0) {
+				bits.write(0, 1);
+				return;
+			}
+			int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+			int trailing = Long.numberOfTrailingZeros(xor);
+			if(lastLeading != Integer.MAX_VALUE && leading >= lastLeading && trailing >= lastTrailing) {
+				bits.write(0b10, 2);
+				bits.write(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+			} else {
+				int length = 64 - leading - trailing;
+				bits.write(0b11, 2);
+				bits.write(leading, 5);
+				// a length of 64 is written as 0
+				bits.write(length, 6);
+				bits.write(xor >>> trailing, length);
+				lastLeading = leading;
+				lastTrailing = trailing;
+			}
+		}
+	}
+
+	/**
+	 * Reads the points of one block back, in order.
+	 */
+	static final class Decoder {
+		private final Block block;
+		private int position;
+		private int read;
+		private long delta;
+		private int leading;
+		private int trailing;
+		long day;
+		double value;
+		private long valueBits;
+
+		Decoder(Block block) {
+			this.block = block;
+		}
+
+		boolean next() {
+			if(read == block.count) {
+				return false;
+			}
+			if(read == 0) {
+				day = block.firstDay;
+				valueBits = readBits(64);
+			} else {
+				delta += readDeltaOfDelta();
+				day += delta;
+				valueBits ^= readXor();
+			}
+			value = Double.longBitsToDouble(valueBits);
+			read++;
+			return true;
+		}
+
+		private long readDeltaOfDelta() {
+			if(readBits(1) == 0) {
+				return 0;
+			}
+			if(readBits(1) == 0) {
+				return signed(readBits(7), 7);
+			}
+			if(readBits(1) == 0) {
+				return signed(readBits(9), 9);
+			}
+			if(readBits(1) == 0) {
+				return signed(readBits(12), 12);
+			}
+			return readBits(64);
+		}
+
+		private long readXor() {
+			if(readBits(1) == 0) {
+				return 0;
+			}
+			if(readBits(1) == 1) {
+				leading = (int)readBits(5);
+				int length = (int)readBits(6);
+				if(length == 0) {
+					length = 64;
+				}
+				trailing = 64 - leading - length;
+			}
+			return readBits(64 - leading - trailing) << trailing;
+		}
+
+		private long readBits(int n) {
+			long v = block.bits.read(position, n);
+			position += n;
+			return v;
+		}
+
+		/**
+		 * Sign-extends the low n bits.
+		 */
+		private static long signed(long v, int n) {
+			return (v << (64 - n)) >> (64 - n);
+		}
+	}
+
+	/**
+	 * Append-only bit stream, most significant bit first.
+	 */
+	static final class BitBuffer {
+		long[] words = new long[2];
+		int size;
+
+		/**
+		 * Appends the low n bits of v (0 <= n <= 64).
+		 */
+		void write(long v, int n) {
+			if(n == 0) {
+				return;
+			}
+			if(n < 64) {
+				v &= (1L << n) - 1;
+			}
+			int word = size >>> 6;
+			int used = size & 63;
+			if(word + 1 >= words.length) {
+				words = Arrays.copyOf(words, words.length * 2);
+			}
+			int free = 64 - used;
+			if(n <= free) {
+				words[word] |= v << (free - n);
+			} else {
+				words[word] |= v >>> (n - free);
+				words[word + 1] |= v << (64 - (n - free));
+			}
+			size += n;
+		}
+
+		/**
+		 * The n bits (0 <= n <= 64) starting at bit position.
+		 */
+		long read(int position, int n) {
+			if(n == 0) {
+				return 0;
+			}
+			int word = position >>> 6;
+			int used = position & 63;
+			int free = 64 - used;
+			long v;
+			if(n <= free) {
+				v = words[word] >>> (free - n);
+			} else {
+				v = (words[word] << (n - free)) | (words[word + 1] >>> (64 - (n - free)));
+			}
+			return n == 64 ? v : v & ((1L << n) - 1);
+		}
+
+		void trim() {
+			// keep one spare word so write()/read() never index past the end
+			words = Arrays.copyOf(words, (size >>> 6) + 2);
+		}
+	}
+}
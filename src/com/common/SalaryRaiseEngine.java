@@ -0,0 +1,136 @@
+package com.common;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Applies salary raises to many employees in parallel.
+ *
+ * Every update goes through Employee's CAS loop, so raises from several engines,
+ * threads or plain salaryIncrement() calls can overlap with each other and with
+ * readers without losing an update, and the employee's salary listeners (e.g. a
+ * SalaryStatistics tracking it) are told about each raise. Each call returns a
+ * Report with the number of employees scanned and raised and the achieved
+ * throughput.
+ *
+ * e.g. the StreamDemo raise, done in parallel:
+ *	SalaryRaiseEngine.parallel().raisePercent(empList, 10.0);
+ */
+public class SalaryRaiseEngine {
+
+	private static final Predicate<Employee> EVERYONE = emp -> true;
+
+	private final boolean parallel;
+
+	private SalaryRaiseEngine(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	public static SalaryRaiseEngine parallel() {
+		return new SalaryRaiseEngine(true);
+	}
+
+	public static SalaryRaiseEngine sequential() {
+		return new SalaryRaiseEngine(false);
+	}
+
+	public Report raisePercent(Collection<Employee> employees, double percent) {
+		return raisePercent(employees, percent, EVERYONE);
+	}
+
+	/**
+	 * Raises salary by percent for every employee matching condition.
+	 */
+	public Report raisePercent(Collection<Employee> employees, double percent, Predicate<? super Employee> condition) {
+		double factor = 1 + percent/100;
+		return apply(stream(employees), condition, salary -> salary * factor);
+	}
+
+	public Report raiseAbsolute(Collection<Employee> employees, double amount) {
+		return raiseAbsolute(employees, amount, EVERYONE);
+	}
+
+	/**
+	 * Adds amount (negative for a cut) to the salary of every employee matching condition.
+	 */
+	public Report raiseAbsolute(Collection<Employee> employees, double amount, Predicate<? super Employee> condition) {
+		return apply(stream(employees), condition, salary -> salary + amount);
+	}
+
+	/**
+	 * Applies an arbitrary salary adjustment to every employee matching condition.
+	 * adjustment may be re-run when another thread updates the same employee
+	 * concurrently, so it must be side-effect free.
+	 */
+	public Report adjust(Collection<Employee> employees, Predicate<? super Employee> condition, DoubleUnaryOperator adjustment) {
+		return apply(stream(employees), condition, adjustment);
+	}
+
+	public Report adjust(Employee[] employees, Predicate<? super Employee> condition, DoubleUnaryOperator adjustment) {
+		Stream<Employee> stream = Arrays.stream(employees);
+		return apply(parallel ? stream.parallel() : stream, condition, adjustment);
+	}
+
+	private Stream<Employee> stream(Collection<Employee> employees) {
+		return parallel ? employees.parallelStream() : employees.stream();
+	}
+
+	private static Report apply(Stream<Employee> employees, Predicate<? super Employee> condition, DoubleUnaryOperator adjustment) {
+		LongAdder scanned = new LongAdder();
+		LongAdder raised = new LongAdder();
+		long start = System.nanoTime();
+		employees.forEach(emp -> {
+			scanned.increment();
+			if(condition.test(emp)) {
+				emp.updateSalary(adjustment);
+				raised.increment();
+			}
+		});
+		return new Report(scanned.sum(), raised.sum(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Outcome of one bulk raise.
+	 */
+	public static class Report {
+		private final long scanned;
+		private final long raised;
+		private final long elapsedNanos;
+
+		Report(long scanned, long raised, long elapsedNanos) {
+			this.scanned = scanned;
+			this.raised = raised;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public long getScanned() {
+			return scanned;
+		}
+
+		public long getRaised() {
+			return raised;
+		}
+
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * Employees scanned per second.
+		 */
+		public double getThroughput() {
+			return elapsedNanos == 0 ? 0.0 : scanned * (double)TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "Report [scanned=" + scanned + ", raised=" + raised + ", elapsedMillis="
+					+ TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + ", throughput=" + (long)getThroughput() + "/s]";
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package com.common;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Salary statistics kept up to date as employees are added, removed or raised,
+ * so a dashboard read is O(1) instead of a collect(Collectors.summarizingDouble(...))
+ * over the whole roster.
+ *
+ * Count and sum are adjusted in place (the sum with compensated summation, so
+ * repeated add/remove does not drift). Min and max come from a counted multiset of
+ * salaries, which keeps them exact when the current min or max employee leaves.
+ * The same aggregates are kept per group, for a classifier given at construction.
+ *
+ * Tracked employees are watched through Employee.addSalaryListener, so every
+ * salary change made through Employee - salaryIncrement, setSalary, the bulk
+ * raises of SalaryRaiseEngine - is picked up as it happens. A change of what the
+ * classifier reads, e.g. a new name, must still be reported with refresh(emp).
+ * All methods are synchronized.
+ */
+public class SalaryStatistics<K> {
+
+	private final Function<? super Employee, ? extends K> classifier;
+	private final Aggregate total = new Aggregate();
+	private final Map<K, Aggregate> groups = new HashMap<>();
+	private final Map<Employee, Tracked<K>> tracked = new IdentityHashMap<>();
+	private final Employee.SalaryListener listener = (emp, oldSalary, newSalary) -> refresh(emp);
+
+	/**
+	 * Statistics over all employees plus one group per classifier value,
+	 * e.g. emp -> emp.getName().charAt(0).
+	 */
+	public SalaryStatistics(Function<? super Employee, ? extends K> classifier) {
+		this.classifier = classifier;
+	}
+
+	/**
+	 * Statistics without grouping.
+	 */
+	public static SalaryStatistics<Void> ungrouped() {
+		return new SalaryStatistics<>(emp -> null);
+	}
+
+	/**
+	 * Starts tracking emp. Returns false if it was already tracked.
+	 */
+	public synchronized boolean add(Employee emp) {
+		if(tracked.containsKey(emp)) {
+			return false;
+		}
+		K group = classifier.apply(emp);
+		double salary = emp.getSalary();
+		tracked.put(emp, new Tracked<>(salary, group));
+		total.add(salary);
+		groups.computeIfAbsent(group, g -> new Aggregate()).add(salary);
+		emp.addSalaryListener(listener);
+		// a raise between reading the salary and registering was not reported
+		refresh(emp);
+		return true;
+	}
+
+	public synchronized void addAll(Iterable<Employee> employees) {
+		for(Employee emp : employees) {
+			add(emp);
+		}
+	}
+
+	/**
+	 * Stops tracking emp. Returns false if it was not tracked.
+	 */
+	public synchronized boolean remove(Employee emp) {
+		Tracked<K> entry = tracked.remove(emp);
+		if(entry == null) {
+			return false;
+		}
+		emp.removeSalaryListener(listener);
+		total.remove(entry.salary);
+		removeFromGroup(entry.group, entry.salary);
+		return true;
+	}
+
+	/**
+	 * Re-reads the salary and group of a tracked employee. Salary changes are
+	 * picked up without it; call it after a change the classifier depends on.
+	 * Returns false if emp is not tracked.
+	 */
+	public synchronized boolean refresh(Employee emp) {
+		Tracked<K> entry = tracked.get(emp);
+		if(entry == null) {
+			return false;
+		}
+		double salary = emp.getSalary();
+		K group = classifier.apply(emp);
+		if(Double.compare(salary, entry.salary) == 0 && equal(group, entry.group)) {
+			return true;
+		}
+		total.remove(entry.salary);
+		total.add(salary);
+		removeFromGroup(entry.group, entry.salary);
+		groups.computeIfAbsent(group, g -> new Aggregate()).add(salary);
+		entry.salary = salary;
+		entry.group = group;
+		return true;
+	}
+
+	/**
+	 * Raises emp's salary and updates the statistics under this object's lock, so
+	 * readers of the statistics see the raise and the aggregate change together.
+	 * Employee.getSalary() takes no such lock and may show the new salary first.
+	 */
+	public synchronized void salaryIncrement(Employee emp, double percent) {
+		emp.salaryIncrement(percent);
+	}
+
+	/*********************** O(1) reads ***********************/
+
+	public synchronized long getCount() {
+		return total.count;
+	}
+
+	public synchronized double getSum() {
+		return total.sum();
+	}
+
+	/**
+	 * Average salary, or 0.0 when empty.
+	 */
+	public synchronized double getAverage() {
+		return total.average();
+	}
+
+	/**
+	 * Minimum salary, or Double.POSITIVE_INFINITY when empty.
+	 */
+	public synchronized double getMin() {
+		return total.min;
+	}
+
+	/**
+	 * Maximum salary, or Double.NEGATIVE_INFINITY when empty.
+	 */
+	public synchronized double getMax() {
+		return total.max;
+	}
+
+	/**
+	 * Current totals in the shape Collectors.summarizingDouble returns.
+	 */
+	public synchronized DoubleSummaryStatistics summary() {
+		return total.summary();
+	}
+
+	/**
+	 * Current aggregates of one group; an empty summary if the group has no members.
+	 */
+	public synchronized DoubleSummaryStatistics summary(K group) {
+		Aggregate aggregate = groups.get(group);
+		return aggregate == null ? new DoubleSummaryStatistics() : aggregate.summary();
+	}
+
+	/**
+	 * Snapshot of every non-empty group.
+	 */
+	public synchronized Map<K, DoubleSummaryStatistics> groupSummaries() {
+		Map<K, DoubleSummaryStatistics> result = new HashMap<>();
+		groups.forEach((group, aggregate) -> result.put(group, aggregate.summary()));
+		return result;
+	}
+
+	private void removeFromGroup(K group, double salary) {
+		Aggregate aggregate = groups.get(group);
+		aggregate.remove(salary);
+		if(aggregate.count == 0) {
+			groups.remove(group);
+		}
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private static final class Tracked<K> {
+		double salary;
+		K group;
+
+		Tracked(double salary, K group) {
+			this.salary = salary;
+			this.group = group;
+		}
+	}
+
+	/**
+	 * count, compensated sum and a salary -> multiplicity multiset for exact min/max.
+	 */
+	private static final class Aggregate {
+		long count;
+		double sum;
+		double compensation;
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		final TreeMap<Double, long[]> salaries = new TreeMap<>();
+
+		void add(double salary) {
+			count++;
+			addToSum(salary);
+			long[] multiplicity = salaries.get(salary);
+			if(multiplicity == null) {
+				salaries.put(salary, new long[] {1});
+			} else {
+				multiplicity[0]++;
+			}
+			min = Math.min(min, salary);
+			max = Math.max(max, salary);
+		}
+
+		void remove(double salary) {
+			count--;
+			addToSum(-salary);
+			long[] multiplicity = salaries.get(salary);
+			if(--multiplicity[0] == 0) {
+				salaries.remove(salary);
+				if(salaries.isEmpty()) {
+					min = Double.POSITIVE_INFINITY;
+					max = Double.NEGATIVE_INFINITY;
+					sum = 0.0;
+					compensation = 0.0;
+				} else {
+					min = salaries.firstKey();
+					max = salaries.lastKey();
+				}
+			}
+		}
+
+		// Neumaier summation: keeps the low-order bits that a plain += would lose
+		private void addToSum(double value) {
+			double t = sum + value;
+			if(Math.abs(sum) >= Math.abs(value)) {
+				compensation += (sum - t) + value;
+			} else {
+				compensation += (value - t) + sum;
+			}
+			sum = t;
+		}
+
+		double sum() {
+			return sum + compensation;
+		}
+
+		double average() {
+			return count == 0 ? 0.0 : sum() / count;
+		}
+
+		DoubleSummaryStatistics summary() {
+			return count == 0 ? new DoubleSummaryStatistics() : new DoubleSummaryStatistics(count, min, max, sum());
+		}
+	}
+}
@@ -0,0 +1,459 @@
+package com.common;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * Count, sum, min and max of values per day, ISO week or month, e.g. payroll per
+ * month of 2020:
+ *	TimeBuckets perMonth = payments.parallelStream().collect(TimeBuckets.collector(
+ *			TimeBuckets.Unit.MONTH, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31),
+ *			Payment::getEpochDay, Payment::getAmount));
+ *	perMonth.getSum(perMonth.indexOfDay(LocalDate.of(2020, 6, 1).toEpochDay()))
+ *
+ * Bucketing with LocalDate (with(TemporalAdjusters.firstDayOfMonth()),
+ * atStartOfDay(), a Map keyed by the result) creates objects for every record. Here
+ * the bucket of a record is computed from its epoch day (or epoch second) with
+ * integer arithmetic only - a week is floorDiv(epochDay + 3, 7), a month comes from
+ * the civil calendar algorithm LocalDate uses internally - and the aggregates sit
+ * in primitive arrays indexed by bucket, so adding a record allocates nothing.
+ *
+ * A TimeBuckets covers the whole buckets from the one containing its first day to
+ * the one containing its last day; records outside are counted by
+ * getOutOfRange() and otherwise ignored. It is not thread-safe, but the collector
+ * and aggregate() give every thread of a parallel stream its own and merge them.
+ * Times of day are UTC; for another zone convert epoch seconds with
+ * ZoneOffsetTables.Table.toLocalSecond() first.
+ *
+ * SlidingWindow keeps the same aggregates over the last n buckets of a stream of
+ * records. A record costs O(1) while its bucket is in the window; one that starts
+ * a new bucket costs O(n), as the window is moved and re-summed.
+ */
+public final class TimeBuckets {
+
+	private static final int SECONDS_PER_DAY = 86_400;
+	private static final int MAX_BUCKETS = 1 << 24;
+	private static final int CHUNK = 1 << 14;
+
+	/**
+	 * The length of a bucket. Bucket numbers count from the bucket containing
+	 * 1970-01-01 (bucket 0); weeks start on Monday.
+	 */
+	public enum Unit {
+		DAY {
+			@Override
+			public long bucketOfDay(long epochDay) {
+				return epochDay;
+			}
+
+			@Override
+			public long firstDay(long bucket) {
+				return bucket;
+			}
+		},
+		ISO_WEEK {
+			@Override
+			public long bucketOfDay(long epochDay) {
+				// 1970-01-01 was a Thursday; its week started on day -3
+				return Math.floorDiv(epochDay + 3, 7);
+			}
+
+			@Override
+			public long firstDay(long bucket) {
+				return bucket * 7 - 3;
+			}
+		},
+		MONTH {
+			@Override
+			public long bucketOfDay(long epochDay) {
+				return monthOfDay(epochDay);
+			}
+
+			@Override
+			public long firstDay(long bucket) {
+				return firstDayOfMonth(bucket);
+			}
+		};
+
+		public abstract long bucketOfDay(long epochDay);
+
+		/**
+		 * The epoch day the bucket starts with.
+		 */
+		public abstract long firstDay(long bucket);
+
+		public long bucketOfSecond(long epochSecond) {
+			return bucketOfDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY));
+		}
+	}
+
+	private final Unit unit;
+	private final long firstBucket;
+	private final long[] counts;
+	private final double[] sums;
+	private final double[] mins;
+	private final double[] maxs;
+	private long outOfRange;
+
+	/**
+	 * Buckets from the one containing from to the one containing to.
+	 */
+	public TimeBuckets(Unit unit, LocalDate from, LocalDate to) {
+		this(unit, from.toEpochDay(), to.toEpochDay());
+	}
+
+	public TimeBuckets(Unit unit, long fromEpochDay, long toEpochDay) {
+		if(fromEpochDay > toEpochDay) {
+			throw new IllegalArgumentException("from is after to: " + fromEpochDay + " > " + toEpochDay);
+		}
+		long first = unit.bucketOfDay(fromEpochDay);
+		long size = unit.bucketOfDay(toEpochDay) - first + 1;
+		if(size > MAX_BUCKETS) {
+			throw new IllegalArgumentException("too many buckets: " + size);
+		}
+		this.unit = unit;
+		this.firstBucket = first;
+		this.counts = new long[(int)size];
+		this.sums = new double[(int)size];
+		this.mins = new double[(int)size];
+		this.maxs = new double[(int)size];
+		Arrays.fill(mins, Double.POSITIVE_INFINITY);
+		Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Collects records into buckets of unit from from to to, parallel streams included.
+	 */
+	public static <T> Collector<T, ?, TimeBuckets> collector(Unit unit, LocalDate from, LocalDate to,
+			ToLongFunction<? super T> epochDay, ToDoubleFunction<? super T> value) {
+		long fromDay = from.toEpochDay();
+		long toDay = to.toEpochDay();
+		return Collector.of(
+				() -> new TimeBuckets(unit, fromDay, toDay),
+				(buckets, t) -> buckets.addDay(epochDay.applyAsLong(t), value.applyAsDouble(t)),
+				(a, b) -> {
+					a.merge(b);
+					return a;
+				},
+				Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	/**
+	 * Buckets of values[i] by epochDays[i], in chunks on the common pool if parallel.
+	 */
+	public static TimeBuckets aggregate(Unit unit, long fromEpochDay, long toEpochDay, long[] epochDays,
+			double[] values, boolean parallel) {
+		int n = PrimitiveOps.checkLengths(epochDays.length, values.length, values.length);
+		IntStream chunks = IntStream.range(0, (n + CHUNK - 1) / CHUNK);
+		if(parallel) {
+			chunks = chunks.parallel();
+		}
+		return chunks.collect(
+				() -> new TimeBuckets(unit, fromEpochDay, toEpochDay),
+				(buckets, c) -> buckets.addDays(epochDays, values, c * CHUNK, Math.min(n, (c + 1) * CHUNK)),
+				TimeBuckets::merge);
+	}
+
+	/*********************** adding ***********************/
+
+	public void addDay(long epochDay, double value) {
+		long index = unit.bucketOfDay(epochDay) - firstBucket;
+		if(index < 0 || index >= counts.length) {
+			outOfRange++;
+			return;
+		}
+		int i = (int)index;
+		counts[i]++;
+		sums[i] += value;
+		mins[i] = Math.min(mins[i], value);
+		maxs[i] = Math.max(maxs[i], value);
+	}
+
+	public void addSecond(long epochSecond, double value) {
+		addDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY), value);
+	}
+
+	/**
+	 * addDay(epochDays[i], values[i]) for i in [from, to).
+	 */
+	public void addDays(long[] epochDays, double[] values, int from, int to) {
+		if(unit == Unit.DAY) {
+			// the common case without the bucket computation
+			for(int k=from; k<to; k++) {
+				long index = epochDays[k] - firstBucket;
+				if(index < 0 || index >= counts.length) {
+					outOfRange++;
+					continue;
+				}
+				int i = (int)index;
+				double value = values[k];
+				counts[i]++;
+				sums[i] += value;
+				mins[i] = Math.min(mins[i], value);
+				maxs[i] = Math.max(maxs[i], value);
+			}
+		} else {
+			for(int k=from; k<to; k++) {
+				addDay(epochDays[k], values[k]);
+			}
+		}
+	}
+
+	/**
+	 * Adds the aggregates of other, which must have the same unit and range.
+	 */
+	public void merge(TimeBuckets other) {
+		if(other.unit != unit || other.firstBucket != firstBucket || other.counts.length != counts.length) {
+			throw new IllegalArgumentException("different buckets: " + this + ", " + other);
+		}
+		for(int i=0; i<counts.length; i++) {
+			counts[i] += other.counts[i];
+			sums[i] += other.sums[i];
+			mins[i] = Math.min(mins[i], other.mins[i]);
+			maxs[i] = Math.max(maxs[i], other.maxs[i]);
+		}
+		outOfRange += other.outOfRange;
+	}
+
+	/*********************** results ***********************/
+
+	public Unit getUnit() {
+		return unit;
+	}
+
+	public int size() {
+		return counts.length;
+	}
+
+	/**
+	 * The index of the bucket containing epochDay, or -1.
+	 */
+	public int indexOfDay(long epochDay) {
+		long index = unit.bucketOfDay(epochDay) - firstBucket;
+		return index < 0 || index >= counts.length ? -1 : (int)index;
+	}
+
+	public long getFirstDay(int index) {
+		return unit.firstDay(firstBucket + index);
+	}
+
+	public LocalDate getStart(int index) {
+		return LocalDate.ofEpochDay(getFirstDay(index));
+	}
+
+	public long getCount(int index) {
+		return counts[index];
+	}
+
+	public double getSum(int index) {
+		return sums[index];
+	}
+
+	/**
+	 * NaN for an empty bucket, as for getMax and getAverage.
+	 */
+	public double getMin(int index) {
+		return counts[index] == 0 ? Double.NaN : mins[index];
+	}
+
+	public double getMax(int index) {
+		return counts[index] == 0 ? Double.NaN : maxs[index];
+	}
+
+	public double getAverage(int index) {
+		return counts[index] == 0 ? Double.NaN : sums[index] / counts[index];
+	}
+
+	public long getOutOfRange() {
+		return outOfRange;
+	}
+
+	@Override
+	public String toString() {
+		return "TimeBuckets[" + unit + " " + getStart(0) + ".." + getStart(counts.length - 1) + ", "
+				+ counts.length + " buckets]";
+	}
+
+	/*********************** calendar arithmetic ***********************/
+
+	/**
+	 * year * 12 + month - 1 of epochDay, by the civil_from_days algorithm of
+	 * H. Hinnant: the year is counted from March, so the leap day is last.
+	 */
+	static long monthOfDay(long epochDay) {
+		long z = epochDay + 719_468;
+		long era = Math.floorDiv(z, 146_097);
+		long dayOfEra = z - era * 146_097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long marchMonth = (5 * dayOfYear + 2) / 153;
+		long month = marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return year * 12 + month - 1;
+	}
+
+	/**
+	 * The epoch day of the first of month (year * 12 + month - 1).
+	 */
+	static long firstDayOfMonth(long month) {
+		long year = Math.floorDiv(month, 12);
+		int monthOfYear = Math.floorMod(month, 12) + 1;
+		if(monthOfYear <= 2) {
+			year--;
+		}
+		long era = Math.floorDiv(year, 400);
+		long yearOfEra = year - era * 400;
+		int marchMonth = (monthOfYear + 9) % 12;
+		long dayOfYear = (153 * marchMonth + 2) / 5;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146_097 + dayOfEra - 719_468;
+	}
+
+	/*********************** sliding window ***********************/
+
+	/**
+	 * Count, sum, min and max over the newest length buckets seen, e.g. the last 7
+	 * days or 12 months of a stream of records. Adding a record updates its bucket
+	 * and the running count and sum in O(1); a record of a newer bucket first moves
+	 * the window forward, clearing the buckets that fall out and re-summing all
+	 * length buckets, so that record costs O(length) and the sum does not drift.
+	 * Records older than the window are counted by getLate() and otherwise ignored.
+	 * min and max look at every bucket of the window. All methods are synchronized.
+	 */
+	public static final class SlidingWindow {
+		private final Unit unit;
+		private final long[] counts;
+		private final double[] sums;
+		private final double[] mins;
+		private final double[] maxs;
+		private long newest = Long.MIN_VALUE;
+		private long count;
+		private double sum;
+		private long late;
+
+		public SlidingWindow(Unit unit, int length) {
+			if(length < 1) {
+				throw new IllegalArgumentException("length < 1: " + length);
+			}
+			this.unit = unit;
+			this.counts = new long[length];
+			this.sums = new double[length];
+			this.mins = new double[length];
+			this.maxs = new double[length];
+			Arrays.fill(mins, Double.POSITIVE_INFINITY);
+			Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+		}
+
+		public synchronized void addDay(long epochDay, double value) {
+			long bucket = unit.bucketOfDay(epochDay);
+			if(bucket > newest) {
+				advance(bucket);
+			} else if(bucket <= newest - counts.length) {
+				late++;
+				return;
+			}
+			int i = Math.floorMod(bucket, counts.length);
+			counts[i]++;
+			sums[i] += value;
+			mins[i] = Math.min(mins[i], value);
+			maxs[i] = Math.max(maxs[i], value);
+			count++;
+			sum += value;
+		}
+
+		public void addSecond(long epochSecond, double value) {
+			addDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY), value);
+		}
+
+		/**
+		 * Moves the window forward to end with the bucket of epochDay, e.g. at
+		 * midnight when no record has arrived yet. Does nothing if it already ends
+		 * there or later.
+		 */
+		public synchronized void advanceToDay(long epochDay) {
+			long bucket = unit.bucketOfDay(epochDay);
+			if(bucket > newest) {
+				advance(bucket);
+			}
+		}
+
+		private void advance(long bucket) {
+			int length = counts.length;
+			// the first record, or a jump past the whole window, clears every bucket
+			long steps = newest == Long.MIN_VALUE ? length : Math.min(bucket - newest, length);
+			for(long k=0; k<steps; k++) {
+				int i = Math.floorMod(bucket - k, length);
+				count -= counts[i];
+				counts[i] = 0;
+				sums[i] = 0;
+				mins[i] = Double.POSITIVE_INFINITY;
+				maxs[i] = Double.NEGATIVE_INFINITY;
+			}
+			newest = bucket;
+			sum = 0;
+			for(double s : sums) {
+				sum += s;
+			}
+		}
+
+		public Unit getUnit() {
+			return unit;
+		}
+
+		public int getLength() {
+			return counts.length;
+		}
+
+		/**
+		 * The epoch day the newest bucket of the window starts with; the window covers
+		 * getLength() buckets up to and including it. Long.MIN_VALUE before the first record.
+		 */
+		public synchronized long getNewestFirstDay() {
+			return newest == Long.MIN_VALUE ? Long.MIN_VALUE : unit.firstDay(newest);
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+
+		public synchronized double getSum() {
+			return sum;
+		}
+
+		public synchronized double getAverage() {
+			return count == 0 ? Double.NaN : sum / count;
+		}
+
+		/**
+		 * NaN if the window is empty, as for getMax.
+		 */
+		public synchronized double getMin() {
+			double min = Double.POSITIVE_INFINITY;
+			for(double m : mins) {
+				min = Math.min(min, m);
+			}
+			return count == 0 ? Double.NaN : min;
+		}
+
+		public synchronized double getMax() {
+			double max = Double.NEGATIVE_INFINITY;
+			for(double m : maxs) {
+				max = Math.max(max, m);
+			}
+			return count == 0 ? Double.NaN : max;
+		}
+
+		public synchronized long getLate() {
+			return late;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return "TimeBuckets.SlidingWindow[" + counts.length + " " + unit + ", count=" + count + ", sum=" + sum + "]";
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package com.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+/**
+ * Collectors that keep only the K best elements by a double key, e.g. the top 100
+ * earners of a 50M roster, instead of sorting or materializing the whole stream.
+ *
+ * Each container is a bounded binary heap of at most k (key, element) pairs, so a
+ * stream of n elements costs O(n log k) time and O(k) space per thread. Parallel
+ * streams get one heap per thread; the combiner pushes the smaller heap into the
+ * larger one. Keys are primitive doubles ordered by Double.compare, so there is no
+ * (int) truncation or overflow as with (int)e1.getSalary() - (int)e2.getSalary().
+ * When several elements tie at the cut-off, which of them are kept is unspecified.
+ */
+public final class TopKCollectors {
+
+	private TopKCollectors() {
+	}
+
+	/**
+	 * The k elements with the largest keys, largest first.
+	 */
+	public static <T> Collector<T, ?, List<T>> topK(int k, ToDoubleFunction<? super T> key) {
+		return collector(k, key, true);
+	}
+
+	/**
+	 * The k elements with the smallest keys, smallest first.
+	 */
+	public static <T> Collector<T, ?, List<T>> bottomK(int k, ToDoubleFunction<? super T> key) {
+		return collector(k, key, false);
+	}
+
+	/**
+	 * The element with the k-th largest key (k = 1 is the maximum), or empty if the
+	 * stream has fewer than k elements.
+	 */
+	public static <T> Collector<T, ?, Optional<T>> kthLargest(int k, ToDoubleFunction<? super T> key) {
+		return Collector.of(
+				() -> new BoundedHeap<T>(k, true),
+				(heap, t) -> heap.offer(key.applyAsDouble(t), t),
+				BoundedHeap::merge,
+				BoundedHeap::kth);
+	}
+
+	/**
+	 * The element with the k-th smallest key (k = 1 is the minimum), or empty if the
+	 * stream has fewer than k elements.
+	 */
+	public static <T> Collector<T, ?, Optional<T>> kthSmallest(int k, ToDoubleFunction<? super T> key) {
+		return Collector.of(
+				() -> new BoundedHeap<T>(k, false),
+				(heap, t) -> heap.offer(key.applyAsDouble(t), t),
+				BoundedHeap::merge,
+				BoundedHeap::kth);
+	}
+
+	private static <T> Collector<T, ?, List<T>> collector(int k, ToDoubleFunction<? super T> key, boolean largest) {
+		return Collector.of(
+				() -> new BoundedHeap<T>(k, largest),
+				(heap, t) -> heap.offer(key.applyAsDouble(t), t),
+				BoundedHeap::merge,
+				BoundedHeap::toSortedList);
+	}
+
+	/**
+	 * Heap of at most k entries whose root is the worst entry kept so far, so a new
+	 * element only has to beat the root to get in.
+	 * For topK the root is the smallest key (a min-heap), for bottomK the largest.
+	 */
+	static final class BoundedHeap<T> {
+		private final int k;
+		private final boolean largest;
+		private double[] keys;
+		private Object[] elements;
+		private int size;
+
+		BoundedHeap(int k, boolean largest) {
+			if(k < 1) {
+				throw new IllegalArgumentException("k must be positive: " + k);
+			}
+			this.k = k;
+			this.largest = largest;
+			// large k starts small and grows, so a top-1M over a short stream stays cheap
+			int capacity = Math.min(k, 64);
+			this.keys = new double[capacity];
+			this.elements = new Object[capacity];
+		}
+
+		void offer(double key, T element) {
+			if(size < k) {
+				if(size == keys.length) {
+					int capacity = (int)Math.min(k, (long)size << 1);
+					keys = Arrays.copyOf(keys, capacity);
+					elements = Arrays.copyOf(elements, capacity);
+				}
+				keys[size] = key;
+				elements[size] = element;
+				siftUp(size++);
+			} else if(worse(keys[0], key)) {
+				keys[0] = key;
+				elements[0] = element;
+				siftDown(0);
+			}
+		}
+
+		BoundedHeap<T> merge(BoundedHeap<T> other) {
+			BoundedHeap<T> into = size >= other.size ? this : other;
+			BoundedHeap<T> from = into == this ? other : this;
+			for(int i=0; i<from.size; i++) {
+				into.offer(from.keys[i], from.element(i));
+			}
+			return into;
+		}
+
+		List<T> toSortedList() {
+			Integer[] order = new Integer[size];
+			for(int i=0; i<size; i++) {
+				order[i] = i;
+			}
+			// best first: descending for topK, ascending for bottomK
+			Arrays.sort(order, (a, b) -> largest ? Double.compare(keys[b], keys[a]) : Double.compare(keys[a], keys[b]));
+			List<T> result = new ArrayList<>(size);
+			for(Integer i : order) {
+				result.add(element(i));
+			}
+			return Collections.unmodifiableList(result);
+		}
+
+		Optional<T> kth() {
+			return size < k ? Optional.empty() : Optional.ofNullable(element(0));
+		}
+
+		/**
+		 * true if a ranks below b, i.e. b should replace a.
+		 */
+		private boolean worse(double a, double b) {
+			return largest ? Double.compare(a, b) < 0 : Double.compare(a, b) > 0;
+		}
+
+		private void siftUp(int i) {
+			double key = keys[i];
+			Object element = elements[i];
+			while(i > 0) {
+				int parent = (i - 1) >>> 1;
+				if(!worse(key, keys[parent])) {
+					break;
+				}
+				keys[i] = keys[parent];
+				elements[i] = elements[parent];
+				i = parent;
+			}
+			keys[i] = key;
+			elements[i] = element;
+		}
+
+		private void siftDown(int i) {
+			double key = keys[i];
+			Object element = elements[i];
+			int half = size >>> 1;
+			while(i < half) {
+				int child = 2 * i + 1;
+				int right = child + 1;
+				if(right < size && worse(keys[right], keys[child])) {
+					child = right;
+				}
+				if(!worse(keys[child], key)) {
+					break;
+				}
+				keys[i] = keys[child];
+				elements[i] = elements[child];
+				i = child;
+			}
+			keys[i] = key;
+			elements[i] = element;
+		}
+
+		@SuppressWarnings("unchecked")
+		private T element(int i) {
+			return (T)elements[i];
+		}
+	}
+}
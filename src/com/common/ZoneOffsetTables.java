@@ -0,0 +1,320 @@
+package com.common;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Zone offsets as primitive lookup tables, for converting many timestamps at once:
+ *	ZoneOffsetTables.Table paris = ZoneOffsetTables.shared().get("Europe/Paris");
+ *	paris.toLocalMillis(epochMillis, localMillis);		// UTC -> Paris wall clock
+ *	paris.toEpochMillis(localMillis, epochMillis);		// and back
+ *
+ * ZonedDateTime.of() and ZoneRules.getOffset() search the zone's transitions (and
+ * for future years compute them from the transition rules) and create an Instant,
+ * a LocalDateTime and a ZonedDateTime per value. A Table compiles every transition
+ * of one zone inside a window of years into a sorted long[] of transition
+ * instants and an int[] of the offsets between them, once; finding an offset is
+ * then a binary search, and the bulk methods first try the interval of the
+ * previous value, which is nearly always right for timestamps in time order.
+ * Outside the window a Table asks the ZoneRules, so results are always correct.
+ *
+ * Local times convert back the way ZonedDateTime.of() does: a time in a gap
+ * (spring forward) is moved later by the length of the gap, a time in an overlap
+ * (fall back) gets the earlier offset.
+ *
+ * Tables are immutable and a ZoneOffsetTables compiles each zone once, so both can
+ * be shared by any number of threads.
+ */
+public final class ZoneOffsetTables {
+
+	private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+
+	private static final ZoneOffsetTables SHARED = new ZoneOffsetTables(1900, 2100);
+	private static final Set<String> ZONE_IDS =
+			Collections.unmodifiableSet(new TreeSet<>(ZoneId.getAvailableZoneIds()));
+
+	private final int fromYear;
+	private final int toYear;
+	private final ConcurrentMap<String, Table> tables = new ConcurrentHashMap<>();
+
+	/**
+	 * Tables covering the years fromYear to toYear, both included.
+	 */
+	public ZoneOffsetTables(int fromYear, int toYear) {
+		if(fromYear > toYear || fromYear < -999_999 || toYear > 999_999) {
+			throw new IllegalArgumentException("invalid year window: " + fromYear + ".." + toYear);
+		}
+		this.fromYear = fromYear;
+		this.toYear = toYear;
+	}
+
+	/**
+	 * Tables for the years 1900 to 2100.
+	 */
+	public static ZoneOffsetTables shared() {
+		return SHARED;
+	}
+
+	/**
+	 * ZoneId.getAvailableZoneIds(), sorted, taken once. ZoneId copies the set on
+	 * every call; this one is immutable and shared. Zones registered by a provider
+	 * later are not in it.
+	 */
+	public static Set<String> availableZoneIds() {
+		return ZONE_IDS;
+	}
+
+	/**
+	 * The table of the zone with this id, compiled on first use.
+	 * @throws java.time.DateTimeException as ZoneId.of(zoneId)
+	 */
+	public Table get(String zoneId) {
+		Table table = tables.get(zoneId);
+		return table != null ? table : tables.computeIfAbsent(zoneId, id -> compile(ZoneId.of(id), fromYear, toYear));
+	}
+
+	public Table get(ZoneId zone) {
+		Table table = tables.get(zone.getId());
+		return table != null ? table : tables.computeIfAbsent(zone.getId(), id -> compile(zone, fromYear, toYear));
+	}
+
+	public int getFromYear() {
+		return fromYear;
+	}
+
+	public int getToYear() {
+		return toYear;
+	}
+
+	/**
+	 * A table of zone for the years fromYear to toYear, not cached.
+	 */
+	public static Table compile(ZoneId zone, int fromYear, int toYear) {
+		ZoneRules rules = zone.getRules();
+		long start = LocalDateTime.of(fromYear, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+		long end = LocalDateTime.of(toYear + 1, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+		LongList instants = new LongList();
+		IntList offsets = new IntList();
+		offsets.add(rules.getOffset(Instant.ofEpochSecond(start)).getTotalSeconds());
+		ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(start));
+		while(transition != null && transition.toEpochSecond() < end) {
+			instants.add(transition.toEpochSecond());
+			offsets.add(transition.getOffsetAfter().getTotalSeconds());
+			transition = rules.nextTransition(transition.getInstant());
+		}
+		return new Table(zone, rules, start, end, instants.toArray(), offsets.toArray());
+	}
+
+	/*********************** Table ***********************/
+
+	/**
+	 * The offsets of one zone. Times are epoch seconds or epoch millis; local times
+	 * are the wall clock time counted as if it were UTC, i.e.
+	 * LocalDateTime.toEpochSecond(ZoneOffset.UTC).
+	 */
+	public static final class Table {
+		private final ZoneId zone;
+		private final ZoneRules rules;
+		private final long start;
+		private final long end;
+
+		/**
+		 * offsets[i] applies from instants[i - 1] (inclusive) to instants[i]; offsets[0]
+		 * from the start of the window.
+		 */
+		private final long[] instants;
+		private final int[] offsets;
+
+		/**
+		 * The local time from which offsets[i + 1] applies: the later of the local
+		 * times just before and just after transition i, so a time in a gap or overlap
+		 * still gets the offset before the transition.
+		 */
+		private final long[] localSwitches;
+
+		Table(ZoneId zone, ZoneRules rules, long start, long end, long[] instants, int[] offsets) {
+			this.zone = zone;
+			this.rules = rules;
+			this.start = start;
+			this.end = end;
+			this.instants = instants;
+			this.offsets = offsets;
+			this.localSwitches = new long[instants.length];
+			for(int i=0; i<instants.length; i++) {
+				localSwitches[i] = instants[i] + Math.max(offsets[i], offsets[i + 1]);
+			}
+		}
+
+		public ZoneId getZone() {
+			return zone;
+		}
+
+		/**
+		 * Number of offset changes inside the window.
+		 */
+		public int getTransitionCount() {
+			return instants.length;
+		}
+
+		public boolean isFixedOffset() {
+			return rules.isFixedOffset();
+		}
+
+		/**
+		 * The offset in seconds at the instant epochSecond.
+		 */
+		public int offsetAt(long epochSecond) {
+			if(epochSecond < start || epochSecond >= end) {
+				return rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+			}
+			return offsets[interval(instants, epochSecond)];
+		}
+
+		public int offsetAtMillis(long epochMilli) {
+			return offsetAt(Math.floorDiv(epochMilli, 1000));
+		}
+
+		/**
+		 * The local time in this zone at the instant epochSecond.
+		 */
+		public long toLocalSecond(long epochSecond) {
+			return epochSecond + offsetAt(epochSecond);
+		}
+
+		/**
+		 * The instant of the local time localSecond in this zone.
+		 */
+		public long toEpochSecond(long localSecond) {
+			return localSecond - localOffset(localSecond);
+		}
+
+		public long toLocalMillis(long epochMilli) {
+			return epochMilli + offsetAtMillis(epochMilli) * 1000L;
+		}
+
+		public long toEpochMillis(long localMilli) {
+			return localMilli - localOffset(Math.floorDiv(localMilli, 1000)) * 1000L;
+		}
+
+		/**
+		 * localSecond - toEpochSecond(localSecond): the offset ZonedDateTime.of() uses
+		 * for the local time localSecond. In a gap that is the offset before it.
+		 */
+		public int localOffset(long localSecond) {
+			// at least 18 hours inside the window, every offset maps into it
+			if(localSecond < start + MAX_OFFSET_SECONDS || localSecond >= end - MAX_OFFSET_SECONDS) {
+				LocalDateTime local = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+				return (int)(localSecond - ZonedDateTime.of(local, zone).toEpochSecond());
+			}
+			return offsets[interval(localSwitches, localSecond)];
+		}
+
+		/*********************** bulk ***********************/
+
+		/**
+		 * offsetSeconds[i] = offsetAtMillis(epochMillis[i]).
+		 */
+		public void offsetsAtMillis(long[] epochMillis, int[] offsetSeconds) {
+			int n = PrimitiveOps.checkLengths(epochMillis.length, offsetSeconds.length, offsetSeconds.length);
+			int last = 0;
+			for(int i=0; i<n; i++) {
+				long second = Math.floorDiv(epochMillis[i], 1000);
+				if(second < start || second >= end) {
+					offsetSeconds[i] = offsetAt(second);
+				} else {
+					last = interval(instants, second, last);
+					offsetSeconds[i] = offsets[last];
+				}
+			}
+		}
+
+		/**
+		 * localMillis[i] = toLocalMillis(epochMillis[i]). The arrays may be the same.
+		 */
+		public void toLocalMillis(long[] epochMillis, long[] localMillis) {
+			int n = PrimitiveOps.checkLengths(epochMillis.length, localMillis.length, localMillis.length);
+			int last = 0;
+			for(int i=0; i<n; i++) {
+				long millis = epochMillis[i];
+				long second = Math.floorDiv(millis, 1000);
+				if(second < start || second >= end) {
+					localMillis[i] = toLocalMillis(millis);
+				} else {
+					last = interval(instants, second, last);
+					localMillis[i] = millis + offsets[last] * 1000L;
+				}
+			}
+		}
+
+		/**
+		 * epochMillis[i] = toEpochMillis(localMillis[i]). The arrays may be the same.
+		 */
+		public void toEpochMillis(long[] localMillis, long[] epochMillis) {
+			int n = PrimitiveOps.checkLengths(localMillis.length, epochMillis.length, epochMillis.length);
+			int last = 0;
+			for(int i=0; i<n; i++) {
+				long millis = localMillis[i];
+				long second = Math.floorDiv(millis, 1000);
+				if(second < start + MAX_OFFSET_SECONDS || second >= end - MAX_OFFSET_SECONDS) {
+					epochMillis[i] = toEpochMillis(millis);
+				} else {
+					last = interval(localSwitches, second, last);
+					epochMillis[i] = millis - offsets[last] * 1000L;
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "ZoneOffsetTables.Table[" + zone + ", " + instants.length + " transitions]";
+		}
+	}
+
+	/**
+	 * The number of bounds <= t, i.e. the index of the offset in force at t.
+	 */
+	static int interval(long[] bounds, long t) {
+		int i = Arrays.binarySearch(bounds, t);
+		return i >= 0 ? i + 1 : -i - 1;
+	}
+
+	/**
+	 * As interval(bounds, t), trying the interval guess first.
+	 */
+	static int interval(long[] bounds, long t, int guess) {
+		if((guess == 0 || bounds[guess - 1] <= t) && (guess == bounds.length || t < bounds[guess])) {
+			return guess;
+		}
+		return interval(bounds, t);
+	}
+
+	/**
+	 * Growable long[] for the transitions while compiling.
+	 */
+	private static final class LongList {
+		private long[] values = new long[64];
+		private int size;
+
+		void add(long value) {
+			if(size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -8,6 +8,7 @@ import java.time.LocalTime;
 import java.time.Month;
 import java.time.Period;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
@@ -15,8 +16,15 @@ import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Locale;
 import java.util.Set;
 
+import com.common.CoarseClock;
+import com.common.DateTimeWriter;
+import com.common.IsoDateParser;
+import com.common.TimeBuckets;
+import com.common.ZoneOffsetTables;
+
 /**
  * Java 8 introduced new APIs for Date and Time to address the shortcomings 
  * of the older java.util.Date and java.util.Calendar
@@ -81,6 +89,17 @@ public class DateAndTimeDemo {
 		  .with(TemporalAdjusters.firstDayOfMonth());
 		System.out.println("LocalDate.parse(\"2016-06-12\").with(TemporalAdjusters.firstDayOfMonth()) : " + firstDayOfMonth);
 		
+		// To total many records per day, ISO week or month, TimeBuckets finds the bucket 
+		// of an epoch day with integer arithmetic and keeps the totals in arrays, without 
+		// a LocalDate or map entry per record
+		TimeBuckets perMonth = new TimeBuckets(TimeBuckets.Unit.MONTH, LocalDate.parse("2016-05-01"), LocalDate.parse("2016-07-31"));
+		perMonth.addDay(LocalDate.parse("2016-05-31").toEpochDay(), 100.0);
+		perMonth.addDay(LocalDate.parse("2016-06-01").toEpochDay(), 250.0);
+		perMonth.addDay(LocalDate.parse("2016-06-12").toEpochDay(), 50.0);
+		for(int i=0; i<perMonth.size(); i++) {
+			System.out.println("TimeBuckets MONTH " + perMonth.getStart(i) + " : count=" + perMonth.getCount(i) + ", sum=" + perMonth.getSum(i));
+		}
+		
 		
 		
 		/****** LocalTime ******/
@@ -128,6 +147,13 @@ public class DateAndTimeDemo {
 		LocalDateTime currentDateTime = LocalDateTime.now();
 		System.out.println("LocalDateTime.now() : " + currentDateTime);
 		
+		// Code that asks for the time millions of times per second can use a CoarseClock: 
+		// it reads the system clock once per millisecond in the background and hands out 
+		// the same LocalDateTime, LocalDate and epoch millis until the next tick
+		CoarseClock coarseClock = CoarseClock.systemDefaultZone();
+		System.out.println("CoarseClock.systemDefaultZone().localDateTime() : " + coarseClock.localDateTime());
+		System.out.println("LocalDate.now(CoarseClock.systemDefaultZone()) : " + LocalDate.now(coarseClock));
+		
 		// create an instance using the factory of and parse methods. 
 		// The result would be a LocalDateTime instance representing 20 February 2015, 06:30 AM
 		LocalDateTime ofDateTime = LocalDateTime.of(2015, Month.FEBRUARY, 20, 06, 30);
@@ -152,6 +178,16 @@ public class DateAndTimeDemo {
 		System.out.println("LocalDateTime.parse(\"2015-02-20T06:40:00\").getMinute() : " + forty);
 		System.out.println("LocalDateTime.parse(\"2015-02-20T06:30:10\").getSecond() : " + ten);
 		
+		// When only the numbers are needed, e.g. for millions of timestamps in a feed, 
+		// IsoDateParser reads the common ISO layouts straight into primitives without 
+		// creating any objects; other input goes through DateTimeFormatter as above
+		long epochDay = IsoDateParser.parseEpochDay("2015-02-20");
+		long nanoOfDay = IsoDateParser.parseNanoOfDay("06:30:10");
+		long epochMillis = IsoDateParser.parseEpochMillis("2015-02-20T06:30:10.250Z");
+		System.out.println("IsoDateParser.parseEpochDay(\"2015-02-20\") : " + epochDay + " = " + LocalDate.ofEpochDay(epochDay));
+		System.out.println("IsoDateParser.parseNanoOfDay(\"06:30:10\") : " + nanoOfDay + " = " + LocalTime.ofNanoOfDay(nanoOfDay));
+		System.out.println("IsoDateParser.parseEpochMillis(\"2015-02-20T06:30:10.250Z\") : " + epochMillis);
+		
 		
 		
 		/******************************* Using ZonedDateTime API *******************************/
@@ -170,6 +206,18 @@ public class DateAndTimeDemo {
 		ZonedDateTime zonedDateTime = ZonedDateTime.of(LocalDateTime.now(), ZoneId.of("Europe/Paris"));
 		System.out.println("ZonedDateTime.of(LocalDateTime.now(), ZoneId.of(\"Europe/Paris\")) : " + zonedDateTime);
 		
+		// To convert many timestamps, ZoneOffsetTables compiles the zone's offset changes 
+		// into arrays once and converts whole arrays of epoch millis at a time
+		ZoneOffsetTables.Table paris = ZoneOffsetTables.shared().get("Europe/Paris");
+		long[] instants = {1584838800000L, 1585443600000L, 1603587600000L};
+		long[] localTimes = new long[instants.length];
+		paris.toLocalMillis(instants, localTimes);
+		for(int i=0; i<instants.length; i++) {
+			System.out.println("ZoneOffsetTables.shared().get(\"Europe/Paris\").toLocalMillis(" + instants[i] + ") : " 
+					+ LocalDateTime.ofEpochSecond(localTimes[i] / 1000, 0, ZoneOffset.UTC));
+		}
+		System.out.println("ZoneOffsetTables.availableZoneIds().size() : " + ZoneOffsetTables.availableZoneIds().size());
+		
 		// The ZonedDateTime provides parse method to get time zone specific date time
 		ZonedDateTime parsedZonedDateTime = ZonedDateTime.parse("2020-04-23T19:58:50.200+02:00[Europe/Paris]");
 		System.out.println("ZonedDateTime.parse(\"2020-04-23T19:58:50.200+02:00[Europe/Paris]\") : " + parsedZonedDateTime);
@@ -232,5 +280,13 @@ public class DateAndTimeDemo {
 		// We can pass in formatting style either as SHORT, LONG or MEDIUM as part of the formatting option
 		String mediumFormatStyle = LocalDateTime.now().format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM));
 		System.out.println("LocalDateTime.now().format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM)) : " + mediumFormatStyle);
+		
+		// Both create a new String per call. DateTimeWriter gives the same text, appended 
+		// to a StringBuilder, char[] or ByteBuffer that can be reused, e.g. for log lines
+		StringBuilder line = new StringBuilder();
+		DateTimeWriter.isoDate().format(LocalDate.now(), line).append(" | ");
+		DateTimeWriter.ofLocalizedDateTime(FormatStyle.MEDIUM, Locale.getDefault()).format(LocalDateTime.now(), line).append(" | ");
+		DateTimeWriter.isoInstant().format(System.currentTimeMillis(), line);
+		System.out.println("DateTimeWriter isoDate | MEDIUM | isoInstant : " + line);
 	}
 }
@@ -1,8 +1,12 @@
 package com.java8;
 
+import com.common.AsyncConsoleSink;
+
 /**
  * Default & Static Methods in Interfaces
- *
+ * 
+ * Output goes through the shared AsyncConsoleSink instead of System.out, so
+ * printing never blocks the calling thread on the console.
  */
 interface TestInterface1{  
     /* This is a default method so we need not
@@ -10,7 +14,7 @@ interface TestInterface1{
      * classes  
      */
     default void newMethod(){  
-        System.out.println("TestInterface1 : Newly added default method");  
+        AsyncConsoleSink.out().println("TestInterface1 : Newly added default method");  
     }  
     /* Already existing public and abstract method
      * We must need to implement this method in 
@@ -21,7 +25,7 @@ interface TestInterface1{
 class TestImplementor1 implements TestInterface1{ 
 	// implementing abstract method
     public void existingMethod(String str){           
-        System.out.println("String is: "+str);  
+        AsyncConsoleSink.out().println("String is: "+str);  
     }  
 
 }
@@ -40,7 +44,7 @@ interface TestInterface2{
      * classes  
      */
     default void newMethod(){  
-        System.out.println("TestInterface2 : Newly added default method");  
+        AsyncConsoleSink.out().println("TestInterface2 : Newly added default method");  
     } 
     
     /* This is a static method. Static method in interface is
@@ -51,7 +55,7 @@ interface TestInterface2{
      * existing interfaces.
      */
     static void anotherNewMethod(){
-    	System.out.println("TestInterface2 : Newly added static method");
+    	AsyncConsoleSink.out().println("TestInterface2 : Newly added static method");
     }
     /* Already existing public and abstract method
      * We must need to implement this method in 
@@ -63,7 +67,7 @@ interface TestInterface2{
 class TestImplementor2 implements TestInterface2{ 
 	// implementing abstract method
     public void existingMethod(String str){           
-        System.out.println("String is: "+str);  
+        AsyncConsoleSink.out().println("String is: "+str);  
     }   
 }
 
@@ -81,7 +85,7 @@ class TestImplementor3 implements TestInterface1, TestInterface2 {
 
 	@Override
 	public void existingMethod(String str) {
-		System.out.println("String is: "+str);  
+		AsyncConsoleSink.out().println("String is: "+str);  
 	}
 
 	@Override
@@ -117,6 +121,8 @@ public class DefaultMethodInterfaceDemo {
 	    // Default Method and Multiple Inheritance
 	    TestImplementor3 obj3 = new TestImplementor3();
 	    obj3.newMethod();
+	    
+	    AsyncConsoleSink.out().flush();
 	}
 	 
 }
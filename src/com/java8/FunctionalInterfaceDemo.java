@@ -1,5 +1,12 @@
 package com.java8;
 
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+import com.common.Memoizer;
+import com.common.PrimitiveOps;
+import com.common.PrimitiveOps.IntBinaryOp;
+
 
 /**
  * An interface with exactly one abstract method is called Functional Interface. 
@@ -84,6 +91,30 @@ public class FunctionalInterfaceDemo {
 		// Using lambda expressions with functional interfaces
 		TestFunctInterface1 tfi1 = (a, b) -> a+b;
 		System.out.println(tfi1.add(10,  15));
+
+
+
+		// The same operations over whole arrays. A lambda is called once per element,
+		// the known operators run as loops the JIT vectorizes.
+		int[] xs = {1, 2, 3, 4, 5, 6, 7, 8};
+		int[] ys = {8, 7, 6, 5, 4, 3, 2, 1};
+		int[] out = new int[xs.length];
+		IntBinaryOp add = (a, b) -> a+b;
+		add.apply(xs, ys, out);
+		PrimitiveOps.IntBinary.ADD.apply(xs, ys, out);
+		IntBinaryOp multiply = PrimitiveOps.intBinary(TestFunctInterface4::multiply);
+		multiply.apply(xs, ys, out);
+		PrimitiveOps.IntBinary.MULTIPLY.apply(xs, ys, out);
+		System.out.println(Arrays.toString(out));
+		
+		
+		
+		// A pure function can be memoized behind its own functional interface
+		IntBinaryOperator cachedMultiply = Memoizer.builder()
+				.maximumSize(256)
+				.memoize(IntBinaryOperator.class, TestFunctInterface4::multiply);
+		System.out.println(cachedMultiply.applyAsInt(6, 7) + " " + cachedMultiply.applyAsInt(6, 7));
+		System.out.println(Memoizer.stats(cachedMultiply));
 	}
 
 }
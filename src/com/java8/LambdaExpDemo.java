@@ -4,6 +4,8 @@ import java.util.Comparator;
 import java.util.function.Predicate;
 
 import com.common.Employee;
+import com.common.EmployeeComparator;
+import com.common.EmployeeFilter;
 
 /**
  * Lambda expression (or function) is just an anonymous function, 
@@ -50,6 +52,14 @@ public class LambdaExpDemo {
 		
 		
 		
+		// A multi-key order built as one comparator that compares the fields as primitives
+		// instead of chaining comparing(...).thenComparing(...); its sort() radix-sorts on
+		// precomputed keys without calling compare at all.
+		EmployeeComparator c4 = EmployeeComparator.builder()
+				.empId().salaryDescending().nameIgnoreCase().build();
+		
+		
+		
 		// Predicate using Lambda Expression
 		Predicate<Employee> p1 = (emp) -> emp.getSalary() > 100000;
 		
@@ -57,6 +67,15 @@ public class LambdaExpDemo {
 		
 		// If a method has a single parameter with inferred type, you can even omit the parentheses.
 		Predicate<Employee> p2 = emp -> emp.getSalary() > 100000;
+
+
+
+		// The same condition built from the EmployeeFilter DSL. Conditions on the same field
+		// are fused into one check and the compiled predicate reorders its terms by how
+		// selective they turn out to be.
+		Predicate<Employee> p3 = EmployeeFilter.salaryGreaterThan(100000)
+				.and(EmployeeFilter.nameStartsWith("H"))
+				.compile();
 	}
 }
 
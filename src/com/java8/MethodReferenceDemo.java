@@ -3,8 +3,13 @@ package com.java8;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
 
+import com.common.CollationKeys;
 import com.common.Employee;
+import com.common.FlyweightCache;
+import com.common.RadixSorts;
 
 /**
  * You use lambda expressions to create anonymous methods. 
@@ -39,6 +44,10 @@ public class MethodReferenceDemo {
 		// 2. Reference to a static method of a class  ContainingClass::staticMethodName
 		Arrays.sort(arrayOfEmps, ComparisonProvider::compareBySalary);
 		
+		// the same ordering without any comparator calls: the salary is extracted once per 
+		// employee and the array is radix-sorted on it
+		RadixSorts.sortBySalary(arrayOfEmps);
+		
 		
 		
 		
@@ -52,6 +61,10 @@ public class MethodReferenceDemo {
 			    "Patricia", "Robert", "Michael", "Linda" };
 		Arrays.sort(stringArray, String::compareToIgnoreCase);
 		
+		// the same order with the case folding done once per string instead of once per 
+		// comparison
+		CollationKeys.sortIgnoreCase(stringArray);
+		
 		
 		
 		
@@ -65,6 +78,14 @@ public class MethodReferenceDemo {
 		  .map(Bicycle::new)
 		  .toArray(Bicycle[]::new);
 		// called both Bicycle and Array constructors using a method reference
+		
+		// with a flyweight factory in place of the constructor, repeated brands 
+		// share one Bicycle instead of allocating a new one each
+		BicycleFactory bicycles = new BicycleFactory(1024);
+		bikeBrands.stream()
+		  .map(bicycles)
+		  .toArray(Bicycle[]::new);
+		System.out.println(bicycles);
 
 	}
 }
@@ -75,17 +96,105 @@ class ComparisonProvider {
     }
     
     public static int compareBySalary(Employee a, Employee b) {
-        return (int)a.getSalary() - (int)b.getSalary();
+        return Double.compare(a.getSalary(), b.getSalary());
     }
 }
 
 class Bicycle{
-	String brand;
-	int frameSize;
+	final String brand;
+	final int frameSize;
 	
 	public Bicycle(String brand) {
+	    this(brand, 0);
+	}
+	
+	public Bicycle(String brand, int frameSize) {
 	    this.brand = brand;
-	    this.frameSize = 0;
+	    this.frameSize = frameSize;
+	}
+}
+
+/**
+ * Hands out shared Bicycle instances per (brand, frame size), so a feed with
+ * few distinct brands allocates a handful of bicycles instead of one per row.
+ * All bicycles live in one FlyweightCache keyed by brand and frame size, bounded
+ * by maxSize. get() with a frame size other than the default builds a key per
+ * lookup; apply() goes through a second cache of at most maxSize entries keyed
+ * by brand alone, which builds none. Safe to share because Bicycle is immutable.
+ */
+class BicycleFactory implements Function<String, Bicycle> {
+	private final FlyweightCache<Key, Bicycle> cache;
+	private final int defaultFrameSize;
+	private final FlyweightCache<String, Bicycle> defaults;
+	
+	public BicycleFactory(int maxSize) {
+		this(new FlyweightCache<>(maxSize, key -> new Bicycle(key.brand, key.frameSize)), 0);
+	}
+	
+	private BicycleFactory(FlyweightCache<Key, Bicycle> cache, int defaultFrameSize) {
+		this.cache = cache;
+		this.defaultFrameSize = defaultFrameSize;
+		// a miss resolves through the shared cache, so both hand out the same instance
+		this.defaults = new FlyweightCache<>(cache.getMaxSize(), brand -> cache.apply(new Key(brand, defaultFrameSize)));
+	}
+	
+	/**
+	 * The shared bicycle of this brand with the default frame size, so the factory
+	 * can replace Bicycle::new in map().
+	 */
+	@Override
+	public Bicycle apply(String brand) {
+		return defaults.apply(brand);
+	}
+	
+	public Bicycle get(String brand, int frameSize) {
+		return frameSize == defaultFrameSize ? defaults.apply(brand) : cache.apply(new Key(brand, frameSize));
+	}
+	
+	/**
+	 * A view with another default frame size that shares this factory's cache.
+	 */
+	public BicycleFactory withFrameSize(int frameSize) {
+		return new BicycleFactory(cache, frameSize);
+	}
+	
+	/**
+	 * Hits / requests of this view, counting a default-size hit and a hit of the
+	 * shared cache alike. The shared counts include the other views of the cache.
+	 */
+	public double getHitRate() {
+		long hits = defaults.getHits() + cache.getHits();
+		long requests = defaults.getHits() + cache.getHits() + cache.getMisses();
+		return requests == 0 ? 0.0 : (double)hits / requests;
+	}
+	
+	@Override
+	public String toString() {
+		return cache.toString();
+	}
+	
+	private static final class Key {
+		final String brand;
+		final int frameSize;
+		
+		Key(String brand, int frameSize) {
+			this.brand = Objects.requireNonNull(brand);
+			this.frameSize = frameSize;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key)o;
+			return frameSize == other.frameSize && brand.equals(other.brand);
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * brand.hashCode() + frameSize;
+		}
 	}
 }
 
@@ -1,5 +1,6 @@
 package com.java8;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -9,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.function.BinaryOperator;
 import java.util.stream.Collectors;
@@ -16,6 +18,14 @@ import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import com.common.Employee;
+import com.common.EmployeeColumns;
+import com.common.EmployeeRegistry;
+import com.common.GroupingCollectors;
+import com.common.IntCollectors;
+import com.common.IntList;
+import com.common.Memoizer;
+import com.common.SalaryHistory;
+import com.common.TopKCollectors;
 
 public class StreamDemo {
 
@@ -27,6 +37,9 @@ public class StreamDemo {
 
 	public static List<Employee> empList = Arrays.asList(arrayOfEmps);
 
+	// empId -> Employee index backing getEmployee(), so lookups don't scan empList
+	public static EmployeeRegistry empRegistry = new EmployeeRegistry(empList);
+
 	public static void main(String[] args) {
 
 		/*********************** Stream Creation ***********************/
@@ -51,8 +64,15 @@ public class StreamDemo {
 		/*********************** Stream Operations ***********************/
 		// forEach()
 		// it loops over the stream elements, calling the supplied function on each element
+		// salaryIncrement overwrites the salary; a SalaryHistory keeps every salary 
+		// with the date it became effective, compressed
+		SalaryHistory salaryHistory = new SalaryHistory();
+		empList.forEach(e -> salaryHistory.record(e, LocalDate.of(2020, 1, 1)));
 		empList.stream().forEach(e -> e.salaryIncrement(10.0));
 		System.out.println(empList);
+		empList.forEach(e -> salaryHistory.record(e, LocalDate.of(2021, 1, 1)));
+		System.out.println(salaryHistory.salaryAsOf(1, LocalDate.of(2020, 6, 30)));
+		System.out.println(salaryHistory.payroll(LocalDate.of(2020, 1, 1), LocalDate.of(2022, 1, 1)));
 
 
 		// map()
@@ -63,6 +83,20 @@ public class StreamDemo {
 				.map(StreamDemo::getEmployee)
 				.collect(Collectors.toList());
 		System.out.println(employees1);
+		
+		// getEmployee is pure, so repeated ids can be answered from a bounded cache; 
+		// the int-keyed variant does not even box the id
+		Memoizer.MemoizedIntFunction<Employee> cachedEmployees = Memoizer.builder()
+				.maximumSize(1024)
+				.intFunction(StreamDemo::getEmployee);
+		List<Employee> employees1b = IntStream.of(2, 3, 2, 3, 2)
+				.mapToObj(cachedEmployees)
+				.collect(Collectors.toList());
+		System.out.println(employees1b + " " + cachedEmployees.stats());
+
+		// the same lookup in bulk, straight off the id index without building a stream
+		Employee[] employees1Bulk = empRegistry.getAll(new int[] { 2, 3, 4 });
+		System.out.println(Arrays.toString(employees1Bulk));
 
 
 		// filter
@@ -130,14 +164,25 @@ public class StreamDemo {
 		// return the minimum and maximum element in the stream respectively, 
 		// based on a comparator passed
 		Employee empMin = empList.stream()
-				.min((e1, e2) -> (int)e1.getSalary() - (int)e2.getSalary())
+				.min((e1, e2) -> Double.compare(e1.getSalary(), e2.getSalary()))
 				.orElseThrow(NoSuchElementException::new);
 		System.out.println("Min : " + empMin);
 		Employee empMax = empList.stream()
-				.max((e1, e2) -> (int)e1.getSalary() - (int)e2.getSalary())
+				.max((e1, e2) -> Double.compare(e1.getSalary(), e2.getSalary()))
 				.orElseThrow(NoSuchElementException::new);
 		System.out.println("Min : " + empMax);
 
+		// top-K / bottom-K
+		// keep only the K highest (or lowest) paid employees in a bounded heap instead of 
+		// sorting the whole stream
+		List<Employee> topEarners = empList.stream()
+				.collect(TopKCollectors.topK(2, Employee::getSalary));
+		System.out.println("Top 2 earners : " + topEarners);
+		Employee secondLowest = empList.stream()
+				.collect(TopKCollectors.kthSmallest(2, Employee::getSalary))
+				.orElseThrow(NoSuchElementException::new);
+		System.out.println("Second lowest salary : " + secondLowest);
+
 
 		// distinct
 		// returns the distinct elements in the stream, eliminating duplicates.
@@ -245,6 +290,13 @@ public class StreamDemo {
 		System.out.println("Maximum salary : " + stats.getMin());
 		System.out.println("Average salary : " + stats.getAverage());
 
+		// the same aggregates from a columnar copy of the roster, computed over a 
+		// plain double[] instead of one Employee object per element
+		EmployeeColumns empColumns = EmployeeColumns.of(empList);
+		System.out.println("Columnar count / sum / min / max / avg : " + empColumns.count() + " / "
+				+ empColumns.sumSalary() + " / " + empColumns.minSalary() + " / "
+				+ empColumns.maxSalary() + " / " + empColumns.avgSalary());
+
 
 		// partitioningBy
 		// We can partition a stream into two  based on whether the elements satisfy 
@@ -276,6 +328,15 @@ public class StreamDemo {
 						Collectors.mapping(Employee::getEmpId, Collectors.toList())));
 		System.out.println("EmpIds with name starting with 'H' : " + idGroupedByAlphabet.get('H'));
 
+		// The same two groupings with a primitive char classifier: no Character per element, 
+		// and parallel threads share one striped table instead of merging per-thread maps.
+		Map<Character, List<Employee>> groupByAlphabetsConcurrent = empList.parallelStream()
+				.collect(GroupingCollectors.groupingByChar(e -> e.getName().charAt(0)));
+		System.out.println("Employees with name starting with 'H' (char grouping) : " + groupByAlphabetsConcurrent.get('H'));
+		Map<Character, IntList> idGroupedByAlphabetConcurrent = empList.parallelStream()
+				.collect(GroupingCollectors.mappingToIntByChar(e -> e.getName().charAt(0), Employee::getEmpId));
+		System.out.println("EmpIds with name starting with 'H' (char grouping) : " + idGroupedByAlphabetConcurrent.get('H'));
+
 
 		// reducing
 		// reducing() is most useful when used in a multi-level reduction, downstream of 
@@ -286,16 +347,22 @@ public class StreamDemo {
 				Collectors.reducing(BinaryOperator.maxBy((i1, i2) -> i1-i2))));
 		System.out.println("Max even integer : " + partitionedMap2.get(true).orElse(0));
 		System.out.println("Max odd integer : " + partitionedMap2.get(false).orElse(0));
+
+		// The same int pipelines on an IntStream with primitive collectors: values stay 
+		// ints from source to result, no Integer is ever created for them.
+		IntList distinctInts = IntCollectors.collect(IntStream.of(2, 5, 3, 2, 4, 3), IntCollectors.distinct());
+		System.out.println("Distinct ints : " + distinctInts);
+		Map<Boolean, IntList> partitionedInts = IntCollectors.collect(IntStream.of(2, 3, 4, 7, 10),
+				IntCollectors.partitioningBy(i -> i%2 == 0));
+		System.out.println("Even int list : " + partitionedInts.get(true));
+		System.out.println("Odd int list : " + partitionedInts.get(false));
+		Map<Boolean, OptionalInt> maxByParity = IntCollectors.collect(IntStream.of(2, 3, 4, 7, 10, 13),
+				IntCollectors.partitioningBy(i -> i%2 == 0, IntCollectors.max()));
+		System.out.println("Max even int : " + maxByParity.get(true).orElse(0));
+		System.out.println("Max odd int : " + maxByParity.get(false).orElse(0));
 	}
 
 	public static Employee getEmployee(int empId) {
-		Employee returnVal = null;
-		for(Employee emp : empList) {
-			if(emp.getEmpId() == empId) {
-				returnVal =  emp;
-				break;
-			}
-		}
-		return returnVal;
+		return empRegistry.get(empId);
 	}
 }
@@ -1,30 +1,33 @@
 package com.java9;
 
+import com.common.AsyncConsoleSink;
+
 /**
  * Java 9 introduced private methods in interfaces to remove the redundancy 
  * by sharing the common code of multiple default methods through private methods.
  * the advantages of having private methods in interfaces are:
  *	1. Allows default methods to share common code to avoid duplicate code (redundancy)
  *	2. Improves readability of code.
+ * Output goes through the shared AsyncConsoleSink instead of System.out.
  */
 interface TestInterface3 {
 	default void method1() {
 		//calling private method
 		printLines();
-		System.out.println("Default Method1 of Interface3");
-		System.out.println();
+		AsyncConsoleSink.out().println("Default Method1 of Interface3");
+		AsyncConsoleSink.out().println();
 	}
 	default void method2() {
 		//calling private method
 		printLines();
-		System.out.println("Default Method2 of Interface3");
-		System.out.println();
+		AsyncConsoleSink.out().println("Default Method2 of Interface3");
+		AsyncConsoleSink.out().println();
 	}
 	
 	// Private Method
 	private void printLines() {
-		System.out.println("Private method : Starting method");
-		System.out.println("Private method : Doing someting");
+		AsyncConsoleSink.out().println("Private method : Starting method");
+		AsyncConsoleSink.out().println("Private method : Doing someting");
 	}
 }
 
@@ -33,20 +36,20 @@ interface TestInterface4 {
 	public static void method1() {
 		//calling private method
 		printLines();
-		System.out.println("Static Method1 of Interface4");
-		System.out.println();
+		AsyncConsoleSink.out().println("Static Method1 of Interface4");
+		AsyncConsoleSink.out().println();
 	}
 	public static void method2() {
 		//calling private method
 		printLines();
-		System.out.println("Static Method2 of Interface4");
-		System.out.println();
+		AsyncConsoleSink.out().println("Static Method2 of Interface4");
+		AsyncConsoleSink.out().println();
 	}
 	
 	// Private Static Method
 	private static void printLines() {
-		System.out.println("Private Static : Starting method");
-		System.out.println("Private Static : Doing someting");
+		AsyncConsoleSink.out().println("Private Static : Starting method");
+		AsyncConsoleSink.out().println("Private Static : Doing someting");
 	}
 }
 
@@ -63,6 +66,7 @@ public class PrivateMethodInterfaceDemo implements TestInterface3 {
 		TestInterface4.method1();
 		TestInterface4.method2();
 		
+		AsyncConsoleSink.out().flush();
 	}
 
 }